@@ -0,0 +1,88 @@
+package com.library.backend.cluster;
+
+import com.library.backend.datasource.ReadReplicaRoutingDataSource;
+import com.library.backend.event.BookChangeEvent;
+import com.library.backend.model.Book;
+import com.library.backend.repository.BookRepository;
+import com.library.backend.service.BookCacheUpdater;
+import com.library.backend.service.BookChangeBroadcaster;
+import com.library.backend.service.BookSearchIndex;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Keeps this node's near-caches coherent with writes made on the other nodes of a cluster.
+// Every local write is announced on the InvalidationChannel before it commits. Every change
+// announced by another node is reloaded from the shared database and applied to the books
+// cache, the search index and this node's change stream subscribers. The books cache is only
+// refreshed where it already holds the book, so another node's bulk import does not push this
+// node's hot entries out.
+@Component
+public class ClusterCoherence implements InvalidationChannel.Listener {
+
+    private final InvalidationChannel channel;
+    private final BookRepository bookRepository;
+    private final BookCacheUpdater cacheUpdater;
+    private final BookSearchIndex searchIndex;
+    private final BookChangeBroadcaster broadcaster;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public ClusterCoherence(InvalidationChannel channel, BookRepository bookRepository,
+                            BookCacheUpdater cacheUpdater, BookSearchIndex searchIndex,
+                            BookChangeBroadcaster broadcaster, PlatformTransactionManager transactionManager) {
+        this.channel = channel;
+        this.bookRepository = bookRepository;
+        this.cacheUpdater = cacheUpdater;
+        this.searchIndex = searchIndex;
+        this.broadcaster = broadcaster;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    // The search index is built by now, so nothing announced from here on is lost
+    @PostConstruct
+    public void start() {
+        channel.subscribe(this);
+    }
+
+    // Inside the writing transaction, so the announcement commits or rolls back with the write
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBookChange(BookChangeEvent event) {
+        channel.publish(event.getBookId());
+    }
+
+    // Reloaded from the primary; a replica may not have the change yet
+    @Override
+    public void onInvalidated(Set<Long> bookIds) {
+        List<Book> books = ReadReplicaRoutingDataSource.onPrimary(
+                () -> transactionTemplate.execute(status -> bookRepository.findAllById(bookIds)));
+        Set<Long> deleted = new HashSet<>(bookIds);
+        for (Book book : books) {
+            deleted.remove(book.getId());
+            cacheUpdater.refreshIfCached(book);
+            searchIndex.index(book);
+            broadcaster.onBookChange(BookChangeEvent.updated(book));
+        }
+        for (Long id : deleted) {
+            cacheUpdater.evict(id);
+            searchIndex.remove(id);
+            broadcaster.onBookChange(BookChangeEvent.deleted(id));
+        }
+    }
+
+    @Override
+    public void onResync() {
+        cacheUpdater.evictAll();
+        searchIndex.rebuild();
+        broadcaster.resyncAll();
+    }
+}
@@ -0,0 +1,24 @@
+package com.library.backend.cluster;
+
+import java.util.Set;
+
+// Carries "this book changed" notices between the nodes of a cluster, so each node can refresh
+// the state it derives from the shared database (books cache, search index, change stream).
+// Selected with library.cluster.invalidation: none (single node, the default) or jdbc.
+public interface InvalidationChannel {
+
+    // Announce a change to the other nodes. Called inside the writing transaction just before
+    // it commits, so an implementation may write through it and commit or roll back with it.
+    void publish(Long bookId);
+
+    // Start delivering changes made on other nodes; called once at startup
+    void subscribe(Listener listener);
+
+    interface Listener {
+        // These books changed on another node; reload them from the database
+        void onInvalidated(Set<Long> bookIds);
+
+        // Changes may have been missed; rebuild everything derived from the database
+        void onResync();
+    }
+}
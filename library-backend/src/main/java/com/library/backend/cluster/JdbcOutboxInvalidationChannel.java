@@ -0,0 +1,159 @@
+package com.library.backend.cluster;
+
+import com.library.backend.model.BookInvalidation;
+import com.library.backend.repository.BookInvalidationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Invalidations through the book_invalidations outbox table in the shared database, so a
+// cluster needs nothing but the database. publish inserts a row in the writing transaction;
+// a poller on every node reads the rows the other nodes wrote since its previous poll.
+// A row is stamped when it is inserted but only becomes visible when its transaction commits,
+// so each poll also re-reads the preceding poll-overlap; node clocks must agree to well
+// within it. Each row is delivered once: rows read again inside the overlap are skipped. A
+// read-through cache load racing the delivery cannot cache the replaced row, since
+// BookCacheUpdater drops loads that started before an invalidation of the same book.
+// Rows are purged after the retention; a node that could not poll for that long may have
+// missed some and asks its listener to resync.
+@Component
+@ConditionalOnProperty(name = "library.cluster.invalidation", havingValue = "jdbc")
+public class JdbcOutboxInvalidationChannel implements InvalidationChannel {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcOutboxInvalidationChannel.class);
+
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(1);
+
+    private final BookInvalidationRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+    private final Duration pollInterval;
+    private final Duration overlap;
+    private final Duration retention;
+    private final Counter published;
+    private final Counter received;
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "book-invalidation-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Only touched on the poller thread once subscribe has run
+    private Listener listener;
+    private Instant lastPoll;
+    private Instant lastPurge;
+    // Outbox row id -> its created_at, for rows already delivered that are still inside the overlap
+    private final Map<Long, Instant> delivered = new HashMap<>();
+
+    @Autowired
+    public JdbcOutboxInvalidationChannel(BookInvalidationRepository repository,
+                                         PlatformTransactionManager transactionManager,
+                                         @Value("${library.cluster.node-id:${random.uuid}}") String nodeId,
+                                         @Value("${library.cluster.poll-interval:200ms}") Duration pollInterval,
+                                         @Value("${library.cluster.poll-overlap:5s}") Duration overlap,
+                                         @Value("${library.cluster.invalidation-retention:10m}") Duration retention,
+                                         MeterRegistry meterRegistry) {
+        if (retention.compareTo(overlap.multipliedBy(2)) < 0) {
+            throw new IllegalArgumentException("library.cluster.invalidation-retention must be at least twice the poll overlap");
+        }
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nodeId = nodeId;
+        this.pollInterval = pollInterval;
+        this.overlap = overlap;
+        this.retention = retention;
+        this.published = Counter.builder("library.cluster.invalidations")
+                .description("Book changes announced to, or received from, other nodes")
+                .tag("direction", "published")
+                .register(meterRegistry);
+        this.received = Counter.builder("library.cluster.invalidations")
+                .description("Book changes announced to, or received from, other nodes")
+                .tag("direction", "received")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void publish(Long bookId) {
+        entityManager.persist(new BookInvalidation(bookId, nodeId, Instant.now()));
+        published.increment();
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        this.listener = listener;
+        this.lastPoll = Instant.now();
+        this.lastPurge = lastPoll;
+        log.info("Node {} polling book invalidations every {}", nodeId, pollInterval);
+        poller.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+
+    private void poll() {
+        Instant started = Instant.now();
+        try {
+            if (Duration.between(lastPoll, started).compareTo(retention.minus(overlap)) > 0) {
+                log.warn("Book invalidations were not read for {}; resyncing", Duration.between(lastPoll, started));
+                delivered.clear();
+                listener.onResync();
+                lastPoll = started;
+                return;
+            }
+
+            Instant since = lastPoll.minus(overlap);
+            List<BookInvalidation> rows = transactionTemplate.execute(
+                    status -> repository.findFromOtherNodesAfter(since, nodeId));
+            Set<Long> bookIds = new HashSet<>();
+            for (BookInvalidation row : rows) {
+                if (delivered.putIfAbsent(row.getId(), row.getCreatedAt()) == null) {
+                    bookIds.add(row.getBookId());
+                }
+            }
+            // Older rows are not read again
+            delivered.values().removeIf(createdAt -> !createdAt.isAfter(since));
+
+            if (!bookIds.isEmpty()) {
+                received.increment(bookIds.size());
+                listener.onInvalidated(bookIds);
+            }
+            lastPoll = started;
+
+            if (Duration.between(lastPurge, started).compareTo(PURGE_INTERVAL) >= 0) {
+                int purged = transactionTemplate.execute(
+                        status -> repository.deleteRecordedBefore(started.minus(retention)));
+                log.debug("Purged {} book invalidations", purged);
+                lastPurge = started;
+            }
+        } catch (RuntimeException e) {
+            // Retried on the next poll; lastPoll stays put, so nothing is skipped
+            log.warn("Polling book invalidations failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.library.backend.cluster;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Single node: every write already reaches this node's caches through BookChangeEvent
+@Component
+@ConditionalOnProperty(name = "library.cluster.invalidation", havingValue = "none", matchIfMissing = true)
+public class NoopInvalidationChannel implements InvalidationChannel {
+
+    @Override
+    public void publish(Long bookId) {
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+    }
+}
@@ -1,16 +1,44 @@
 package com.library.backend.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.library.backend.dto.BookBatchResult;
+import com.library.backend.dto.BookChanges;
+import com.library.backend.dto.BookFacets;
+import com.library.backend.dto.BookImportResult;
+import com.library.backend.dto.BookOperation;
+import com.library.backend.dto.BookSlice;
 import com.library.backend.model.Book;
+import com.library.backend.service.BookBatchService;
+import com.library.backend.service.BookChangeBroadcaster;
+import com.library.backend.service.BookImportService;
 import com.library.backend.service.BookService;
+import com.library.backend.service.BookVersionMismatchException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -18,11 +46,27 @@ import java.util.List;
 @CrossOrigin(origins = "*") // Allow JavaFX frontend to connect
 public class BookController {
 
+    // Versions start at 0, so this never matches a book
+    private static final long UNMATCHABLE_VERSION = -1;
+    private static final String CHANGES_SINCE = "X-Changes-Since";
+
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final BookBatchService bookBatchService;
+    private final BookChangeBroadcaster changeBroadcaster;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborMapper;
 
     @Autowired
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookImportService bookImportService,
+                          BookBatchService bookBatchService, BookChangeBroadcaster changeBroadcaster,
+                          ObjectMapper objectMapper, MappingJackson2CborHttpMessageConverter cborConverter) {
         this.bookService = bookService;
+        this.bookImportService = bookImportService;
+        this.bookBatchService = bookBatchService;
+        this.changeBroadcaster = changeBroadcaster;
+        this.objectMapper = objectMapper;
+        this.cborMapper = cborConverter.getObjectMapper();
     }
 
     // Create a new book
@@ -36,34 +80,121 @@ public class BookController {
         }
     }
 
+    // Bulk import from a JSON array, an NDJSON stream or CBOR, inserted in batched chunks
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<BookImportResult> importBooks(
+            InputStream body,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestParam(required = false) Integer chunkSize) {
+        ObjectMapper mapper = MediaType.APPLICATION_CBOR.isCompatibleWith(contentType) ? cborMapper : objectMapper;
+        // readValues accepts both a top-level array and a sequence of root-level objects
+        try (MappingIterator<Book> books = mapper.readerFor(Book.class).readValues(body)) {
+            BookImportResult result = chunkSize == null
+                    ? bookImportService.importBooks(books)
+                    : bookImportService.importBooks(books, chunkSize);
+            // Malformed midway: 400, with what was stored before it
+            return result.getParseFailure() == null
+                    ? ResponseEntity.ok(result)
+                    : ResponseEntity.badRequest().body(result);
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().body(bookImportService.unreadable(e));
+        } catch (IOException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Apply mixed create/update/delete operations in one transaction, with per-operation results.
+    // 409 means a concurrent writer got in the way and nothing was applied; retry the same batch.
+    @PostMapping("/batch")
+    public ResponseEntity<BookBatchResult> applyBatch(@RequestBody List<BookOperation> operations) {
+        try {
+            BookBatchResult result = bookBatchService.applyBatch(operations);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     // Get all books
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
+    public ResponseEntity<List<Book>> getAllBooks(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            String etag = catalogETag();
+            if (matchesETag(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
             List<Book> books = bookService.getAllBooks();
             if (books.isEmpty()) {
-                return ResponseEntity.noContent().build();
+                return ResponseEntity.noContent().eTag(etag).build();
             }
-            return ResponseEntity.ok(books);
+            return ResponseEntity.ok().eTag(etag).body(books);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
-    // Get book by ID
+    // Export the whole catalog as newline-delimited JSON, streamed row by row
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            ObjectWriter writer = objectMapper.writerFor(Book.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+            long count;
+            try {
+                count = bookService.exportBooks(book -> {
+                    try {
+                        writer.writeValue(generator, book);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (count > 0) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // Get book by ID; the ETag is the book's version, for If-Match on later writes
     @GetMapping("/{id}")
     public ResponseEntity<Book> getBookById(@PathVariable Long id) {
         return bookService.getBookById(id)
-                .map(ResponseEntity::ok)
+                .map(book -> ResponseEntity.ok().eTag(versionETag(book.getVersion())).body(book))
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    // Update book
+    // Update book. With If-Match the update only applies to the version the client saw (412
+    // otherwise); without it, last writer wins, retried if it races another writer (409 if
+    // it keeps losing).
     @PutMapping("/{id}")
-    public ResponseEntity<Book> updateBook(@PathVariable Long id, @RequestBody Book book) {
+    public ResponseEntity<Book> updateBook(
+            @PathVariable Long id,
+            @RequestBody Book book,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Book updatedBook = bookService.updateBook(id, book);
-            return ResponseEntity.ok(updatedBook);
+            Book updatedBook = bookService.updateBook(id, book, expectedVersion(ifMatch));
+            return ResponseEntity.ok().eTag(versionETag(updatedBook.getVersion())).body(updatedBook);
+        } catch (BookVersionMismatchException e) {
+            return preconditionFailed(e);
+        } catch (ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         } catch (Exception e) {
@@ -71,12 +202,18 @@ public class BookController {
         }
     }
 
-    // Delete book
+    // Delete book, with the same If-Match handling as updateBook
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteBook(@PathVariable Long id) {
+    public ResponseEntity<Void> deleteBook(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            bookService.deleteBook(id);
+            bookService.deleteBook(id, expectedVersion(ifMatch));
             return ResponseEntity.noContent().build();
+        } catch (BookVersionMismatchException e) {
+            return preconditionFailed(e);
+        } catch (ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         } catch (Exception e) {
@@ -85,14 +222,30 @@ public class BookController {
     }
 
     // Search books - Bonus feature
+    // mode=substring (default): every book whose title or author contains q, by id.
+    // mode=ranked: the `limit` most relevant books for the words in q, typos tolerated.
     @GetMapping("/search")
-    public ResponseEntity<List<Book>> searchBooks(@RequestParam String q) {
+    public ResponseEntity<List<Book>> searchBooks(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "substring") String mode,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            List<Book> books = bookService.searchBooks(q);
+            String etag = catalogETag();
+            if (matchesETag(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            List<Book> books = switch (mode) {
+                case "substring" -> bookService.searchBooks(q);
+                case "ranked" -> bookService.searchBooksRanked(q, limit);
+                default -> throw new IllegalArgumentException("Unsupported mode: " + mode);
+            };
             if (books.isEmpty()) {
-                return ResponseEntity.noContent().build();
+                return ResponseEntity.noContent().eTag(etag).build();
             }
-            return ResponseEntity.ok(books);
+            return ResponseEntity.ok().eTag(etag).body(books);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -103,11 +256,16 @@ public class BookController {
     public ResponseEntity<Page<Book>> getBooksWithPagination(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "id") String sortBy) {
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            String etag = catalogETag();
+            if (matchesETag(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
             Pageable pageable = PageRequest.of(page, size, Sort.by(sortBy));
             Page<Book> booksPage = bookService.getBooksWithPagination(pageable);
-            return ResponseEntity.ok(booksPage);
+            return ResponseEntity.ok().eTag(etag).body(booksPage);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -118,13 +276,143 @@ public class BookController {
     public ResponseEntity<Page<Book>> searchBooksWithPagination(
             @RequestParam String q,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            String etag = catalogETag();
+            if (matchesETag(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
             Pageable pageable = PageRequest.of(page, size);
             Page<Book> booksPage = bookService.searchBooksWithPagination(q, pageable);
-            return ResponseEntity.ok(booksPage);
+            return ResponseEntity.ok().eTag(etag).body(booksPage);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Scroll through books with a continuation token - no OFFSET and no total count.
+    // X-Changes-Since is a /changes cursor taken before the window was read, so a client that
+    // copies the catalog by scrolling can catch up from the first window's cursor afterwards.
+    @GetMapping("/scroll")
+    public ResponseEntity<BookSlice> scrollBooks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            String etag = catalogETag();
+            if (matchesETag(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            long changesSince = bookService.changesCursor();
+            BookSlice slice = bookService.scrollBooks(sortBy, cursor, size);
+            return ResponseEntity.ok().eTag(etag)
+                    .header(CHANGES_SINCE, Long.toString(changesSince))
+                    .body(slice);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-}
\ No newline at end of file
+
+    // Book counts per author and per publication year or decade (yearBucket=year|decade),
+    // top `limit` of each; q restricts the counts to the books that search would return
+    @GetMapping("/facets")
+    public ResponseEntity<BookFacets> getFacets(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "year") String yearBucket,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            String etag = catalogETag();
+            if (matchesETag(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            BookFacets facets = bookService.getFacets(q, limit, yearBucket);
+            return ResponseEntity.ok().eTag(etag).body(facets);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Delta sync: books created or updated and ids deleted since the given epoch millis.
+    // since=0 returns the whole catalog in one response; copy a large catalog through /scroll
+    // instead. Pass the response's nextSince on the following call.
+    @GetMapping("/changes")
+    public ResponseEntity<BookChanges> getChanges(@RequestParam(defaultValue = "0") long since) {
+        try {
+            BookChanges changes = bookService.getChangesSince(Instant.ofEpochMilli(since));
+            return ResponseEntity.ok(changes);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Live change notifications as Server-Sent Events: "ready" on connect, then "changes"
+    // events carrying BookChanges deltas, or "resync" when the client fell too far behind
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges() {
+        return changeBroadcaster.subscribe();
+    }
+
+    // Strong ETag of a single book: its version
+    private static String versionETag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    // Version required by If-Match, or null when the write is unconditional (no header, or "*").
+    // If-Match compares strongly, so a weak, malformed or multi-valued header yields a version
+    // no book has and the write fails its precondition.
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Falls through to the unmatchable version
+            }
+        }
+        return UNMATCHABLE_VERSION;
+    }
+
+    private static <T> ResponseEntity<T> preconditionFailed(BookVersionMismatchException e) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.PRECONDITION_FAILED);
+        if (e.getCurrentVersion() != null) {
+            response.eTag(versionETag(e.getCurrentVersion()));
+        }
+        return response.build();
+    }
+
+    // ETag shared by the list endpoints: every committed write bumps it, so one value covers
+    // every page and query. It is read before the data, so a write committing in between can
+    // only make it older than the body (costing a refetch), never hide the write behind a 304.
+    private String catalogETag() {
+        return "W/\"" + bookService.getCatalogVersion() + "\"";
+    }
+
+    // Weak comparison against If-None-Match, which may list several tags or be "*"
+    private static boolean matchesETag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = stripWeakPrefix(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeakPrefix(tag).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,297 @@
+package com.library.backend.datasource;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Replication for local testing, where the replicas are H2 databases and H2 cannot replicate
+// by itself. Every interval it copies the books and tombstones written since its previous copy
+// from the primary to each replica, together with the catalog version and the primary's
+// heartbeat, so ReplicaLagMonitor
+// measures these replicas like any others. A row is stamped before its transaction commits, so
+// each copy re-reads the preceding overlap, like the change feed; rows already copied at the
+// same version are skipped. Each replica can be given an extra delay to try out lag handling.
+// With real database replicas, leave this off and let the database replicate.
+@Component
+@ConditionalOnProperty(name = "library.replicas.local-replication", havingValue = "true")
+public class LocalReplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalReplicator.class);
+
+    private static final String BOOK_COLUMNS = "id, title, author, isbn, published_date, version, last_modified";
+
+    private final ReadReplicaRoutingDataSource routing;
+    private final Duration interval;
+    private final Duration overlap;
+    private final List<Target> targets = new ArrayList<>();
+    private final ScheduledExecutorService replicator = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-replicator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only touched on the replicator thread
+    private Instant copiedUpTo = Instant.EPOCH;
+    // Book id -> version already copied, for rows still inside the overlap
+    private final Map<Long, Copied> copied = new HashMap<>();
+
+    @Autowired
+    public LocalReplicator(ReadReplicaRoutingDataSource routing,
+                           @Value("${library.replicas.local-replication.interval:100ms}") Duration interval,
+                           @Value("${library.replicas.local-replication.overlap:5s}") Duration overlap,
+                           @Value("${library.replicas.local-replication.delays:}") String delays) {
+        this.routing = routing;
+        this.interval = interval;
+        this.overlap = overlap;
+        String[] delayList = delays.isBlank() ? new String[0] : delays.split(",");
+        for (int i = 0; i < routing.getReplicas().size(); i++) {
+            Duration delay = i < delayList.length ? DurationStyle.detectAndParse(delayList[i].trim()) : Duration.ZERO;
+            targets.add(new Target(routing.getReplicas().get(i), delay));
+        }
+    }
+
+    // The replicas get the primary's schema before anything reads them
+    @PostConstruct
+    public void migrateReplicas() {
+        for (Target target : targets) {
+            Flyway.configure().dataSource(target.replica.getDataSource()).load().migrate();
+        }
+    }
+
+    // The primary is migrated by now
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        log.info("Replicating the primary to {} local replica(s) every {}", targets.size(), interval);
+        replicator.scheduleWithFixedDelay(this::replicate, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        replicator.shutdownNow();
+    }
+
+    private void replicate() {
+        try {
+            for (Target target : targets) {
+                if (target.resync && !target.fullCopyPending) {
+                    Changes all = readChanges(null);
+                    target.fullCopyPending = true;
+                    schedule(target, () -> apply(target, all, true));
+                }
+            }
+
+            Instant since = copiedUpTo.minus(overlap);
+            Changes changes = readChanges(since);
+            changes.books.removeIf(book -> {
+                Copied previous = copied.put(book.id, new Copied(book.version, book.lastModified));
+                return previous != null && previous.version == book.version;
+            });
+            copied.values().removeIf(row -> !row.lastModified.isAfter(since));
+            copiedUpTo = changes.heartbeat;
+
+            for (Target target : targets) {
+                schedule(target, () -> apply(target, changes, false));
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Retried on the next run from the same point
+            log.warn("Reading changes from the primary failed: {}", e.getMessage());
+        }
+    }
+
+    private void schedule(Target target, Runnable apply) {
+        if (target.delay.isZero()) {
+            apply.run();
+        } else {
+            replicator.schedule(apply, target.delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Everything written after since, or the whole catalog if since is null. The heartbeat and
+    // the catalog version are read first, so the rows read afterwards include every write
+    // committed before them and a replica's ETag is never newer than its rows.
+    private Changes readChanges(Instant since) throws SQLException {
+        try (Connection connection = routing.getPrimary().getConnection()) {
+            Instant heartbeat;
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT beat_at FROM replication_heartbeat WHERE id = 1")) {
+                heartbeat = rows.next() ? rows.getObject(1, OffsetDateTime.class).toInstant() : Instant.EPOCH;
+            }
+
+            long catalogVersion;
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT version FROM catalog_version WHERE id = 1")) {
+                catalogVersion = rows.next() ? rows.getLong(1) : 0;
+            }
+
+            Changes changes = new Changes(heartbeat, catalogVersion);
+            String where = since == null ? "" : " WHERE last_modified > ?";
+            try (PreparedStatement statement = connection.prepareStatement("SELECT " + BOOK_COLUMNS + " FROM books" + where)) {
+                if (since != null) {
+                    statement.setObject(1, since.atOffset(ZoneOffset.UTC));
+                }
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        changes.books.add(new Row(rows.getLong(1), rows.getString(2), rows.getString(3),
+                                rows.getString(4), rows.getDate(5), rows.getLong(6),
+                                rows.getObject(7, OffsetDateTime.class).toInstant()));
+                    }
+                }
+            }
+
+            String deletedWhere = since == null ? "" : " WHERE deleted_at > ?";
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT book_id, deleted_at FROM book_tombstones" + deletedWhere)) {
+                if (since != null) {
+                    statement.setObject(1, since.atOffset(ZoneOffset.UTC));
+                }
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        changes.deletions.put(rows.getLong(1), rows.getObject(2, OffsetDateTime.class));
+                    }
+                }
+            }
+            return changes;
+        }
+    }
+
+    // Apply in one transaction, so readers see the replica move from one heartbeat to the next.
+    // A failed apply would leave a gap behind later ones, so the replica is copied in full next.
+    private void apply(Target target, Changes changes, boolean full) {
+        if (target.resync && !full) {
+            return;
+        }
+        try (Connection connection = target.replica.getDataSource().getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                if (full) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.executeUpdate("DELETE FROM books");
+                        statement.executeUpdate("DELETE FROM book_tombstones");
+                    }
+                } else {
+                    // Deleted first, so an ISBN that moved between books never collides
+                    try (PreparedStatement delete = connection.prepareStatement("DELETE FROM books WHERE id = ?")) {
+                        for (Row book : changes.books) {
+                            delete.setLong(1, book.id);
+                            delete.addBatch();
+                        }
+                        for (Long id : changes.deletions.keySet()) {
+                            delete.setLong(1, id);
+                            delete.addBatch();
+                        }
+                        delete.executeBatch();
+                    }
+                }
+
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO books (" + BOOK_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                    for (Row book : changes.books) {
+                        insert.setLong(1, book.id);
+                        insert.setString(2, book.title);
+                        insert.setString(3, book.author);
+                        insert.setString(4, book.isbn);
+                        insert.setDate(5, book.publishedDate);
+                        insert.setLong(6, book.version);
+                        insert.setObject(7, book.lastModified.atOffset(ZoneOffset.UTC));
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+
+                try (PreparedStatement merge = connection.prepareStatement(
+                        "MERGE INTO book_tombstones (book_id, deleted_at) KEY (book_id) VALUES (?, ?)")) {
+                    for (Map.Entry<Long, OffsetDateTime> deletion : changes.deletions.entrySet()) {
+                        merge.setLong(1, deletion.getKey());
+                        merge.setObject(2, deletion.getValue());
+                        merge.addBatch();
+                    }
+                    merge.executeBatch();
+                }
+
+                try (PreparedStatement version = connection.prepareStatement(
+                        "UPDATE catalog_version SET version = ? WHERE id = 1")) {
+                    version.setLong(1, changes.catalogVersion);
+                    version.executeUpdate();
+                }
+
+                try (PreparedStatement heartbeat = connection.prepareStatement(
+                        "UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1")) {
+                    heartbeat.setObject(1, changes.heartbeat.atOffset(ZoneOffset.UTC));
+                    heartbeat.executeUpdate();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+            if (full) {
+                target.resync = false;
+                target.fullCopyPending = false;
+                log.info("Copied the whole catalog to replica {}", target.replica.getName());
+            }
+        } catch (SQLException e) {
+            log.warn("Replicating to {} failed, copying it in full next: {}", target.replica.getName(), e.getMessage());
+            target.resync = true;
+            target.fullCopyPending = false;
+        }
+    }
+
+    private static final class Target {
+        private final ReadReplicaRoutingDataSource.Replica replica;
+        private final Duration delay;
+        // Only touched on the replicator thread
+        private boolean resync;
+        private boolean fullCopyPending;
+
+        private Target(ReadReplicaRoutingDataSource.Replica replica, Duration delay) {
+            this.replica = replica;
+            this.delay = delay;
+        }
+    }
+
+    private static final class Changes {
+        private final Instant heartbeat;
+        private final long catalogVersion;
+        private final List<Row> books = new ArrayList<>();
+        private final Map<Long, OffsetDateTime> deletions = new HashMap<>();
+
+        private Changes(Instant heartbeat, long catalogVersion) {
+            this.heartbeat = heartbeat;
+            this.catalogVersion = catalogVersion;
+        }
+    }
+
+    private record Row(long id, String title, String author, String isbn, Date publishedDate,
+                       long version, Instant lastModified) {
+    }
+
+    private record Copied(long version, Instant lastModified) {
+    }
+}
@@ -0,0 +1,191 @@
+package com.library.backend.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Sends read-only transactions to a replica and everything else to the primary. A replica is
+// only used while it is at most maxLag behind the primary, as last measured by
+// ReplicaLagMonitor; with none that fresh, reads fall back to the primary.
+// Replicas are taken round-robin, but all reads of one HTTP request go to the same replica, so
+// a list endpoint's ETag is never newer than the body it is sent with. If that replica falls
+// behind mid-request, the rest of the request reads the primary, which is newer still.
+// Must sit behind a LazyConnectionDataSourceProxy: the transaction manager asks for a
+// connection before the transaction is marked read-only, and the proxy defers that until the
+// first statement.
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private static final String REQUEST_REPLICA = ReadReplicaRoutingDataSource.class.getName() + ".replica";
+    private static final ThreadLocal<Boolean> primaryOnly = new ThreadLocal<>();
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Counter> routed = new HashMap<>();
+    private final Counter fallbacks;
+
+    public ReadReplicaRoutingDataSource(HikariDataSource primary, List<Replica> replicas, Duration maxLag,
+                                        MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLag = maxLag;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        routed.put(PRIMARY, routedCounter(PRIMARY, meterRegistry));
+        for (Replica replica : this.replicas) {
+            targets.put(replica.getName(), replica.getDataSource());
+            routed.put(replica.getName(), routedCounter(replica.getName(), meterRegistry));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+
+        this.fallbacks = Counter.builder("library.datasource.replica.fallbacks")
+                .description("Read-only transactions sent to the primary because no replica was fresh enough")
+                .register(meterRegistry);
+    }
+
+    // Run reads on the primary even inside a read-only transaction: for data that is kept for
+    // longer than a replica may lag, such as cache loads and the search index. Only affects
+    // connections the transaction has not obtained yet.
+    public static <T> T onPrimary(Supplier<T> reads) {
+        Boolean previous = primaryOnly.get();
+        primaryOnly.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            if (previous == null) {
+                primaryOnly.remove();
+            } else {
+                primaryOnly.set(previous);
+            }
+        }
+    }
+
+    public HikariDataSource getPrimary() {
+        return primary;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public Duration getMaxLag() {
+        return maxLag;
+    }
+
+    // Replicas currently fresh enough to serve reads
+    public int usableReplicas() {
+        long now = System.currentTimeMillis();
+        int usable = 0;
+        for (Replica replica : replicas) {
+            if (replica.isUsable(now, maxLag)) {
+                usable++;
+            }
+        }
+        return usable;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String target = PRIMARY;
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && primaryOnly.get() == null) {
+            Replica replica = chooseReplica();
+            if (replica != null) {
+                target = replica.getName();
+            } else {
+                fallbacks.increment();
+            }
+        }
+        routed.get(target).increment();
+        return target;
+    }
+
+    // The primary pool is a bean of its own and is closed with the context
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.getDataSource().close();
+        }
+    }
+
+    private Replica chooseReplica() {
+        long now = System.currentTimeMillis();
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            Replica pinned = (Replica) request.getAttribute(REQUEST_REPLICA, RequestAttributes.SCOPE_REQUEST);
+            if (pinned != null) {
+                return pinned.isUsable(now, maxLag) ? pinned : null;
+            }
+        }
+
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.isUsable(now, maxLag)) {
+                if (request != null) {
+                    request.setAttribute(REQUEST_REPLICA, replica, RequestAttributes.SCOPE_REQUEST);
+                }
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static Counter routedCounter(String target, MeterRegistry meterRegistry) {
+        return Counter.builder("library.datasource.routed")
+                .description("Connections handed out, by the datasource they came from")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    // A replica's pool and how far it has caught up with the primary
+    public static final class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        // Epoch millis of the newest primary heartbeat seen on the replica; 0 until one is
+        private volatile long caughtUpTo;
+
+        public Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public HikariDataSource getDataSource() {
+            return dataSource;
+        }
+
+        // The replica holds every write the primary had committed by this instant
+        public void caughtUpTo(long epochMillis) {
+            caughtUpTo = epochMillis;
+        }
+
+        // How far behind the primary the replica is, as far as is known; grows between
+        // measurements, so a replica that stops replicating drops out on its own
+        public long lagMillis(long now) {
+            return caughtUpTo == 0 ? Long.MAX_VALUE : Math.max(0, now - caughtUpTo);
+        }
+
+        boolean isUsable(long now, Duration maxLag) {
+            return lagMillis(now) <= maxLag.toMillis();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.library.backend.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Measures how far each replica is behind the primary. Every check stamps the current time
+// into the primary's replication_heartbeat row and reads the row back from every replica: a
+// replica that shows heartbeat T holds every write the primary had committed by T. Every
+// backend instance writes the heartbeat, so node clocks must agree to well within max-lag.
+@Component
+@ConditionalOnProperty(name = "library.replicas.urls")
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final ReadReplicaRoutingDataSource routing;
+    private final Duration checkInterval;
+    private final ScheduledExecutorService checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only touched on the checker thread: whether each replica was usable at the last check
+    private final Map<String, Boolean> usable = new HashMap<>();
+
+    @Autowired
+    public ReplicaLagMonitor(ReadReplicaRoutingDataSource routing,
+                             @Value("${library.replicas.lag-check-interval:250ms}") Duration checkInterval,
+                             MeterRegistry meterRegistry) {
+        this.routing = routing;
+        this.checkInterval = checkInterval;
+        for (ReadReplicaRoutingDataSource.Replica replica : routing.getReplicas()) {
+            Gauge.builder("library.replica.lag", replica, ReplicaLagMonitor::lagSeconds)
+                    .description("How far the replica is behind the primary; infinite until it has caught up once")
+                    .tag("replica", replica.getName())
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("library.replicas.usable", routing, ReadReplicaRoutingDataSource::usableReplicas)
+                .description("Replicas within library.replicas.max-lag of the primary")
+                .register(meterRegistry);
+    }
+
+    // The heartbeat table exists once the migrations have run; until the first check finds a
+    // replica caught up, every read goes to the primary
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        log.info("Checking {} replica(s) every {}; reads fall back to the primary beyond {} of lag",
+                routing.getReplicas().size(), checkInterval, routing.getMaxLag());
+        checker.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checker.shutdownNow();
+    }
+
+    private void check() {
+        try (Connection connection = routing.getPrimary().getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1")) {
+            statement.setObject(1, OffsetDateTime.now(ZoneOffset.UTC));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            log.warn("Writing the replication heartbeat failed: {}", e.getMessage());
+        }
+
+        for (ReadReplicaRoutingDataSource.Replica replica : routing.getReplicas()) {
+            try (Connection connection = replica.getDataSource().getConnection();
+                 PreparedStatement statement = connection.prepareStatement(
+                         "SELECT beat_at FROM replication_heartbeat WHERE id = 1");
+                 ResultSet rows = statement.executeQuery()) {
+                if (rows.next()) {
+                    replica.caughtUpTo(rows.getObject(1, OffsetDateTime.class).toInstant().toEpochMilli());
+                }
+            } catch (SQLException e) {
+                // Its lag keeps growing until it answers again
+                log.debug("Reading the heartbeat of {} failed: {}", replica.getName(), e.getMessage());
+            }
+
+            long lag = replica.lagMillis(System.currentTimeMillis());
+            boolean nowUsable = lag <= routing.getMaxLag().toMillis();
+            Boolean wasUsable = usable.put(replica.getName(), nowUsable);
+            if (wasUsable == null || wasUsable != nowUsable) {
+                if (nowUsable) {
+                    log.info("Replica {} is serving reads ({} ms behind)", replica.getName(), lag);
+                } else if (wasUsable != null) {
+                    log.warn("Replica {} is {} behind; its reads go to the primary", replica.getName(),
+                            lag == Long.MAX_VALUE ? "unknown" : lag + " ms");
+                }
+            }
+        }
+    }
+
+    private static double lagSeconds(ReadReplicaRoutingDataSource.Replica replica) {
+        long lag = replica.lagMillis(System.currentTimeMillis());
+        return lag == Long.MAX_VALUE ? Double.POSITIVE_INFINITY : lag / 1000.0;
+    }
+}
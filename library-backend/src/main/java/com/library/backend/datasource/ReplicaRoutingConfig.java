@@ -0,0 +1,80 @@
+package com.library.backend.datasource;
+
+import com.library.backend.service.BookService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Read replicas (application-replicas.properties): replaces Boot's single datasource with the
+// primary from spring.datasource.*, one pool per URL in library.replicas.urls (same user and
+// password) and a ReadReplicaRoutingDataSource in front of them. JPA and Flyway use the
+// @Primary lazy proxy; Flyway's connections are outside any transaction, so they reach the
+// primary.
+@Configuration
+@ConditionalOnProperty(name = "library.replicas.urls")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReadReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource, DataSourceProperties properties,
+            @Value("${library.replicas.urls}") String urls,
+            @Value("${library.replicas.pool-size:10}") int poolSize,
+            @Value("${library.replicas.max-lag:1s}") Duration maxLag,
+            MeterRegistry meterRegistry) {
+        // A change feed cursor read from a replica must still cover what it has not seen yet
+        if (maxLag.compareTo(BookService.CHANGE_FEED_OVERLAP) >= 0) {
+            throw new IllegalArgumentException("library.replicas.max-lag must be below the change feed overlap of "
+                    + BookService.CHANGE_FEED_OVERLAP);
+        }
+
+        List<ReadReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String name = "replica-" + (replicas.size() + 1);
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url.trim())
+                    .username(properties.determineUsername())
+                    .password(properties.determinePassword())
+                    .build();
+            pool.setPoolName(name);
+            pool.setMaximumPoolSize(poolSize);
+            pool.setMetricRegistry(meterRegistry);
+            replicas.add(new ReadReplicaRoutingDataSource.Replica(name, pool));
+        }
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("library.replicas.urls lists no replica");
+        }
+        return new ReadReplicaRoutingDataSource(primaryDataSource, replicas, maxLag, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,118 @@
+package com.library.backend.dto;
+
+import com.library.backend.model.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Outcome of a batch write: one result per operation, in request order
+public class BookBatchResult {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED,
+        // The operation was not applied
+        NOT_FOUND, INVALID, CONFLICT;
+
+        public boolean isApplied() {
+            return this == CREATED || this == UPDATED || this == DELETED;
+        }
+    }
+
+    private final OperationResult[] results;
+
+    public BookBatchResult(int operations) {
+        this.results = new OperationResult[operations];
+    }
+
+    public void set(int index, OperationResult result) {
+        results[index] = result;
+    }
+
+    // Null until the operation has been decided
+    public OperationResult get(int index) {
+        return results[index];
+    }
+
+    public List<OperationResult> getResults() {
+        return Arrays.asList(results);
+    }
+
+    public long getApplied() {
+        long applied = 0;
+        for (OperationResult result : results) {
+            if (result.getStatus().isApplied() && !result.isReplayed()) {
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    public List<OperationResult> getFailures() {
+        List<OperationResult> failures = new ArrayList<>();
+        for (OperationResult result : results) {
+            if (!result.getStatus().isApplied()) {
+                failures.add(result);
+            }
+        }
+        return failures;
+    }
+
+    public static class OperationResult {
+
+        // Zero-based position of the operation in the request
+        private final int index;
+        private final Status status;
+        private final Long id;
+        // The stored book after a CREATE or UPDATE; absent on replays
+        private final Book book;
+        // True if the idempotency key had been seen before and this is the original outcome
+        private final boolean replayed;
+        private final String reason;
+
+        private OperationResult(int index, Status status, Long id, Book book, boolean replayed, String reason) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+            this.book = book;
+            this.replayed = replayed;
+            this.reason = reason;
+        }
+
+        public static OperationResult applied(int index, Status status, Long id, Book book) {
+            return new OperationResult(index, status, id, book, false, null);
+        }
+
+        public static OperationResult replayed(int index, Status status, Long id) {
+            return new OperationResult(index, status, id, null, true, null);
+        }
+
+        public static OperationResult rejected(int index, Status status, Long id, String reason) {
+            return new OperationResult(index, status, id, null, false, reason);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public Book getBook() {
+            return book;
+        }
+
+        public boolean isReplayed() {
+            return replayed;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+}
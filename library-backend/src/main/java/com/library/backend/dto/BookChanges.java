@@ -0,0 +1,32 @@
+package com.library.backend.dto;
+
+import com.library.backend.model.Book;
+
+import java.util.List;
+
+// Delta for /api/books/changes: books created or updated, and ids of books deleted.
+// Pass nextSince back as ?since= on the following call.
+public class BookChanges {
+
+    private final List<Book> upserts;
+    private final List<Long> deletions;
+    private final long nextSince;
+
+    public BookChanges(List<Book> upserts, List<Long> deletions, long nextSince) {
+        this.upserts = upserts;
+        this.deletions = deletions;
+        this.nextSince = nextSince;
+    }
+
+    public List<Book> getUpserts() {
+        return upserts;
+    }
+
+    public List<Long> getDeletions() {
+        return deletions;
+    }
+
+    public long getNextSince() {
+        return nextSince;
+    }
+}
@@ -0,0 +1,72 @@
+package com.library.backend.dto;
+
+import com.library.backend.model.Book;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque continuation token for keyset pagination: the (sortKey, id) of the last row served
+public class BookCursor {
+
+    private static final char SEPARATOR = '\u0000';
+
+    private final String sortBy;
+    private final String key;
+    private final Long id;
+
+    public BookCursor(String sortBy, String key, Long id) {
+        this.sortBy = sortBy;
+        this.key = key;
+        this.id = id;
+    }
+
+    // Cursor positioned after the given book
+    public static BookCursor after(String sortBy, Book book) {
+        String key = switch (sortBy) {
+            case "id" -> String.valueOf(book.getId());
+            case "title" -> book.getTitle();
+            case "author" -> book.getAuthor();
+            case "isbn" -> book.getIsbn();
+            default -> throw new IllegalArgumentException("Unsupported sortBy: " + sortBy);
+        };
+        return new BookCursor(sortBy, key, book.getId());
+    }
+
+    public static BookCursor decode(String token) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+
+        int first = raw.indexOf(SEPARATOR);
+        int last = raw.lastIndexOf(SEPARATOR);
+        if (first < 0 || first == last) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        try {
+            return new BookCursor(raw.substring(0, first), raw.substring(first + 1, last),
+                    Long.valueOf(raw.substring(last + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+
+    public String encode() {
+        String raw = sortBy + SEPARATOR + key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,24 @@
+package com.library.backend.dto;
+
+import java.util.List;
+
+// Browse sidebar counts: top authors and top publication years (or decades), most books first
+public class BookFacets {
+
+    private final List<FacetCount> authors;
+    private final List<FacetCount> years;
+
+    public BookFacets(List<FacetCount> authors, List<FacetCount> years) {
+        this.authors = authors;
+        this.years = years;
+    }
+
+    public List<FacetCount> getAuthors() {
+        return authors;
+    }
+
+    // Values are years ("1999") or decades ("1990s"), depending on the requested bucket
+    public List<FacetCount> getYears() {
+        return years;
+    }
+}
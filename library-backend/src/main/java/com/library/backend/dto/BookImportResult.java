@@ -0,0 +1,90 @@
+package com.library.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Outcome of a bulk import: how many rows were stored and why the others were rejected
+public class BookImportResult {
+
+    private long imported;
+    private final List<RowFailure> failures = new ArrayList<>();
+    // Set when the body could not be parsed to the end; every row before it was processed
+    private ParseFailure parseFailure;
+
+    public void addImported(int count) {
+        imported += count;
+    }
+
+    public void addFailure(long row, String isbn, String reason) {
+        failures.add(new RowFailure(row, isbn, reason));
+    }
+
+    public void setParseFailure(long row, long offset, String reason) {
+        parseFailure = new ParseFailure(row, offset, reason);
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public List<RowFailure> getFailures() {
+        return failures;
+    }
+
+    public ParseFailure getParseFailure() {
+        return parseFailure;
+    }
+
+    public static class RowFailure {
+
+        // Zero-based position of the row in the request body
+        private final long row;
+        private final String isbn;
+        private final String reason;
+
+        public RowFailure(long row, String isbn, String reason) {
+            this.row = row;
+            this.isbn = isbn;
+            this.reason = reason;
+        }
+
+        public long getRow() {
+            return row;
+        }
+
+        public String getIsbn() {
+            return isbn;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    public static class ParseFailure {
+
+        // Zero-based position of the row that could not be read
+        private final long row;
+        // Byte offset in the request body where parsing stopped, or -1 if unknown
+        private final long offset;
+        private final String reason;
+
+        public ParseFailure(long row, long offset, String reason) {
+            this.row = row;
+            this.offset = offset;
+            this.reason = reason;
+        }
+
+        public long getRow() {
+            return row;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+}
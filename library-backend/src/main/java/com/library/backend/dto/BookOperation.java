@@ -0,0 +1,77 @@
+package com.library.backend.dto;
+
+import com.library.backend.model.Book;
+
+// One entry of a batch write (POST /api/books/batch).
+// CREATE needs book, UPDATE needs id and book (all fields replaced), DELETE needs id.
+// An UPDATE or DELETE with expectedVersion is only applied while the book is at that version,
+// like If-Match on the single-book endpoints; otherwise it is reported as a CONFLICT.
+// A retried batch reusing the same idempotencyKey is not applied twice.
+public class BookOperation {
+
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+
+    private Type type;
+    private Long id;
+    private Long expectedVersion;
+    private String idempotencyKey;
+    private Book book;
+
+    // Constructors
+    public BookOperation() {}
+
+    public BookOperation(Type type, Long id, String idempotencyKey, Book book) {
+        this(type, id, null, idempotencyKey, book);
+    }
+
+    public BookOperation(Type type, Long id, Long expectedVersion, String idempotencyKey, Book book) {
+        this.type = type;
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+        this.idempotencyKey = idempotencyKey;
+        this.book = book;
+    }
+
+    // Getters and Setters
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public void setExpectedVersion(Long expectedVersion) {
+        this.expectedVersion = expectedVersion;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public void setBook(Book book) {
+        this.book = book;
+    }
+}
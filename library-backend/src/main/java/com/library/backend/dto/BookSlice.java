@@ -0,0 +1,35 @@
+package com.library.backend.dto;
+
+import com.library.backend.model.Book;
+
+import java.util.List;
+
+// One window of a keyset scroll; pass nextCursor back to get the following window
+public class BookSlice {
+
+    private final List<Book> content;
+    private final boolean hasNext;
+    private final String nextCursor;
+
+    public BookSlice(List<Book> content, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Book> getContent() {
+        return content;
+    }
+
+    public int getSize() {
+        return content.size();
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
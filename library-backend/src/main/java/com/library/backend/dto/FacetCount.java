@@ -0,0 +1,21 @@
+package com.library.backend.dto;
+
+// One facet value (an author, a year or a decade) and the number of books that have it
+public class FacetCount {
+
+    private final String value;
+    private final long count;
+
+    public FacetCount(String value, long count) {
+        this.value = value;
+        this.count = count;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
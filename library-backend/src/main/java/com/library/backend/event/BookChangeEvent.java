@@ -0,0 +1,56 @@
+package com.library.backend.event;
+
+import com.library.backend.model.Book;
+
+// Published by BookService whenever a book is created, updated or deleted.
+// Listeners that keep derived state (search index, caches, ...) should use
+// @TransactionalEventListener so they only see committed changes.
+public class BookChangeEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final Long bookId;
+    private final Book book;
+
+    private BookChangeEvent(Type type, Long bookId, Book book) {
+        this.type = type;
+        this.bookId = bookId;
+        this.book = book;
+    }
+
+    public static BookChangeEvent created(Book book) {
+        return new BookChangeEvent(Type.CREATED, book.getId(), book);
+    }
+
+    public static BookChangeEvent updated(Book book) {
+        return new BookChangeEvent(Type.UPDATED, book.getId(), book);
+    }
+
+    public static BookChangeEvent deleted(Long bookId) {
+        return new BookChangeEvent(Type.DELETED, bookId, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    // Null for DELETED events
+    public Book getBook() {
+        return book;
+    }
+
+    @Override
+    public String toString() {
+        return "BookChangeEvent{" +
+                "type=" + type +
+                ", bookId=" + bookId +
+                '}';
+    }
+}
@@ -0,0 +1,50 @@
+package com.library.backend.metrics;
+
+import com.library.backend.service.BookChangeBroadcaster;
+import com.library.backend.service.BookSearchIndex;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Application metrics on top of what Actuator binds automatically
+// (http.server.requests, hikaricp.*, hibernate.*, cache.*)
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+
+    public MetricsConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Enables @Timed on service classes
+    @Bean
+    public TimedAspect timedAspect() {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public MeterBinder searchIndexMetrics(BookSearchIndex searchIndex) {
+        return registry -> Gauge.builder("library.search.index.books", searchIndex, BookSearchIndex::size)
+                .description("Books held in the in-memory search index")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder changeStreamMetrics(BookChangeBroadcaster changeBroadcaster) {
+        return registry -> Gauge.builder("library.changes.subscribers", changeBroadcaster,
+                        BookChangeBroadcaster::subscriberCount)
+                .description("Open /api/books/stream connections")
+                .register(registry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new StatementCountInterceptor(meterRegistry)).addPathPatterns("/api/**");
+    }
+}
@@ -1,14 +1,25 @@
 package com.library.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "books")
+// Schema is managed by Flyway (db/migration); the indexes are listed here for reference
+@Table(name = "books", indexes = {
+        // Back the (sortKey, id) seek predicates used by keyset pagination
+        @Index(name = "idx_books_title_id", columnList = "title, id"),
+        @Index(name = "idx_books_author_id", columnList = "author, id"),
+        @Index(name = "idx_books_published_date", columnList = "published_date"),
+        @Index(name = "idx_books_last_modified", columnList = "last_modified")
+})
 public class Book {
 
+    // Pooled sequence rather than IDENTITY, so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -23,6 +34,16 @@ public class Book {
     @Column(name = "published_date")
     private LocalDate publishedDate;
 
+    // Bumped by Hibernate on every update; assigned by the server only
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    // When the row was last written - drives the change feed and the catalog ETag
+    @Column(name = "last_modified", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant lastModified;
+
     // Constructors
     public Book() {}
 
@@ -33,6 +54,20 @@ public class Book {
         this.publishedDate = publishedDate;
     }
 
+    // Detached copy, for caches and indexes that must not share managed instances
+    public Book(Book other) {
+        this(other.title, other.author, other.isbn, other.publishedDate);
+        this.id = other.id;
+        this.version = other.version;
+        this.lastModified = other.lastModified;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        lastModified = Instant.now();
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -74,6 +109,14 @@ public class Book {
         this.publishedDate = publishedDate;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
     @Override
     public String toString() {
         return "Book{" +
@@ -82,6 +125,7 @@ public class Book {
                 ", author='" + author + '\'' +
                 ", isbn='" + isbn + '\'' +
                 ", publishedDate=" + publishedDate +
+                ", version=" + version +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.library.backend.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+// Outbox row announcing that a book changed on one node of a cluster, written in the same
+// transaction as the change so the other nodes hear about exactly the writes that committed
+@Entity
+@Table(name = "book_invalidations", indexes = {
+        @Index(name = "idx_book_invalidations_created_at", columnList = "created_at")
+})
+public class BookInvalidation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_invalidation_seq")
+    @SequenceGenerator(name = "book_invalidation_seq", sequenceName = "book_invalidation_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(name = "origin_node", nullable = false, length = 64)
+    private String originNode;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Constructors
+    public BookInvalidation() {}
+
+    public BookInvalidation(Long bookId, String originNode, Instant createdAt) {
+        this.bookId = bookId;
+        this.originNode = originNode;
+        this.createdAt = createdAt;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getOriginNode() {
+        return originNode;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
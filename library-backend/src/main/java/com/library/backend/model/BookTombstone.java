@@ -0,0 +1,36 @@
+package com.library.backend.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+// Left behind when a book is deleted, so the change feed can report the deletion
+@Entity
+@Table(name = "book_tombstones", indexes = {
+        @Index(name = "idx_book_tombstones_deleted_at", columnList = "deleted_at")
+})
+public class BookTombstone {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+
+    // Constructors
+    public BookTombstone() {}
+
+    public BookTombstone(Long bookId, Instant deletedAt) {
+        this.bookId = bookId;
+        this.deletedAt = deletedAt;
+    }
+
+    // Getters
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+}
@@ -0,0 +1,63 @@
+package com.library.backend.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+// Remembers what a batch operation sent with an idempotency key did, so a retry of the
+// same batch is answered from here instead of being applied again
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    // BookOperation.Type name
+    @Column(nullable = false, length = 10)
+    private String operation;
+
+    // BookBatchResult.Status name
+    @Column(nullable = false, length = 20)
+    private String outcome;
+
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Constructors
+    public IdempotencyRecord() {}
+
+    public IdempotencyRecord(String key, String operation, String outcome, Long bookId, Instant createdAt) {
+        this.key = key;
+        this.operation = operation;
+        this.outcome = outcome;
+        this.bookId = bookId;
+        this.createdAt = createdAt;
+    }
+
+    // Getters
+    public String getKey() {
+        return key;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getOutcome() {
+        return outcome;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
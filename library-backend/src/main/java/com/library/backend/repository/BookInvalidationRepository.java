@@ -0,0 +1,24 @@
+package com.library.backend.repository;
+
+import com.library.backend.model.BookInvalidation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface BookInvalidationRepository extends JpaRepository<BookInvalidation, Long> {
+
+    // Invalidations written by other nodes after the given instant
+    @Query("SELECT i FROM BookInvalidation i WHERE i.createdAt > :since AND i.originNode <> :node ORDER BY i.id")
+    List<BookInvalidation> findFromOtherNodesAfter(@Param("since") Instant since, @Param("node") String node);
+
+    // Drop invalidations written before the cutoff; returns how many were removed
+    @Modifying
+    @Query("DELETE FROM BookInvalidation i WHERE i.createdAt < :cutoff")
+    int deleteRecordedBefore(@Param("cutoff") Instant cutoff);
+}
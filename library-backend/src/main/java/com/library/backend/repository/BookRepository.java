@@ -1,14 +1,22 @@
 package com.library.backend.repository;
 
 import com.library.backend.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
@@ -24,6 +32,55 @@ public interface BookRepository extends JpaRepository<Book, Long> {
             "OR LOWER(b.author) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     List<Book> searchBooks(@Param("searchTerm") String searchTerm);
 
+    // Which of the given ISBNs are already taken - used to reject conflicts before a bulk insert
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    // Current versions of the given ids, for those that exist - used to report missing and
+    // changed books in a batch without loading them
+    @Query("SELECT b.id AS id, b.version AS version FROM Book b WHERE b.id IN :ids")
+    List<IdVersion> findVersions(@Param("ids") Collection<Long> ids);
+
+    // Current holders of the given ISBNs
+    @Query("SELECT b.isbn AS isbn, b.id AS id FROM Book b WHERE b.isbn IN :isbns")
+    List<IsbnOwner> findIsbnOwners(@Param("isbns") Collection<String> isbns);
+
+    interface IsbnOwner {
+        String getIsbn();
+
+        Long getId();
+    }
+
+    interface IdVersion {
+        Long getId();
+
+        Long getVersion();
+    }
+
+    // Set-based writes for batches. They bypass the entity lifecycle, so they maintain
+    // version and last_modified themselves; callers must publish the BookChangeEvents.
+    // A null expectedVersion updates whatever version the row is at.
+    @Modifying
+    @Query("UPDATE Book b SET b.title = :title, b.author = :author, b.isbn = :isbn, " +
+            "b.publishedDate = :publishedDate, b.version = b.version + 1, b.lastModified = :now " +
+            "WHERE b.id = :id AND (:expectedVersion IS NULL OR b.version = :expectedVersion)")
+    int updateFields(@Param("id") Long id, @Param("expectedVersion") Long expectedVersion,
+                     @Param("title") String title, @Param("author") String author,
+                     @Param("isbn") String isbn, @Param("publishedDate") LocalDate publishedDate,
+                     @Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE FROM Book b WHERE b.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM Book b WHERE b.id = :id AND b.version = :expectedVersion")
+    int deleteAtVersion(@Param("id") Long id, @Param("expectedVersion") Long expectedVersion);
+
+    // Books created or updated after the given instant, for the change feed
+    @Query("SELECT b FROM Book b WHERE b.lastModified > :since ORDER BY b.id")
+    List<Book> findModifiedAfter(@Param("since") Instant since);
+
     // Pagination support - Bonus feature
     Page<Book> findAll(Pageable pageable);
 
@@ -31,4 +88,42 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     @Query("SELECT b FROM Book b WHERE LOWER(b.title) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
             "OR LOWER(b.author) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     Page<Book> searchBooksWithPagination(@Param("searchTerm") String searchTerm, Pageable pageable);
-}
\ No newline at end of file
+
+    // Keyset pagination - seek past the last (sortKey, id) instead of using OFFSET.
+    // The Pageable only carries the limit; returning a List skips the count query.
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    List<Book> scrollById(Pageable limit);
+
+    @Query("SELECT b FROM Book b WHERE b.id > :id ORDER BY b.id")
+    List<Book> scrollByIdAfter(@Param("id") Long id, Pageable limit);
+
+    @Query("SELECT b FROM Book b ORDER BY b.title, b.id")
+    List<Book> scrollByTitle(Pageable limit);
+
+    @Query("SELECT b FROM Book b WHERE b.title > :title OR (b.title = :title AND b.id > :id) " +
+            "ORDER BY b.title, b.id")
+    List<Book> scrollByTitleAfter(@Param("title") String title, @Param("id") Long id, Pageable limit);
+
+    @Query("SELECT b FROM Book b ORDER BY b.author, b.id")
+    List<Book> scrollByAuthor(Pageable limit);
+
+    @Query("SELECT b FROM Book b WHERE b.author > :author OR (b.author = :author AND b.id > :id) " +
+            "ORDER BY b.author, b.id")
+    List<Book> scrollByAuthorAfter(@Param("author") String author, @Param("id") Long id, Pageable limit);
+
+    @Query("SELECT b FROM Book b ORDER BY b.isbn")
+    List<Book> scrollByIsbn(Pageable limit);
+
+    // ISBN is unique, so it needs no id tie-breaker
+    @Query("SELECT b FROM Book b WHERE b.isbn > :isbn ORDER BY b.isbn")
+    List<Book> scrollByIsbnAfter(@Param("isbn") String isbn, Pageable limit);
+
+    // Stream the whole catalog through a server-side cursor - must be consumed inside a transaction.
+    // Rows are loaded read-only, so Hibernate keeps no dirty-checking snapshots for them.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAll();
+}
@@ -0,0 +1,19 @@
+package com.library.backend.repository;
+
+import com.library.backend.model.BookTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface BookTombstoneRepository extends JpaRepository<BookTombstone, Long> {
+
+    // Ids of the books deleted after the given instant
+    @Query("SELECT t.bookId FROM BookTombstone t WHERE t.deletedAt > :since ORDER BY t.bookId")
+    List<Long> findDeletedAfter(@Param("since") Instant since);
+
+}
@@ -0,0 +1,328 @@
+package com.library.backend.service;
+
+import com.library.backend.dto.BookBatchResult;
+import com.library.backend.dto.BookBatchResult.OperationResult;
+import com.library.backend.dto.BookBatchResult.Status;
+import com.library.backend.dto.BookOperation;
+import com.library.backend.event.BookChangeEvent;
+import com.library.backend.model.Book;
+import com.library.backend.model.BookTombstone;
+import com.library.backend.model.IdempotencyRecord;
+import com.library.backend.repository.BookRepository;
+import com.library.backend.repository.IdempotencyRecordRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Mixed create/update/delete batches applied in one transaction.
+// Updates and deletes are set-based statements instead of a findById followed by a save or
+// delete: one UPDATE per update, one DELETE for all unconditional deletes (and one per delete
+// with an expected version), and the existence, version and ISBN checks are one query each for
+// the whole batch. Expected versions are also part of the statements' predicates, so a writer
+// that gets in between the check and the statement still causes a CONFLICT, never an overwrite. Creates, tombstones and idempotency records are
+// persisted and go out as JDBC batches. Operations that fail a check are reported and skipped;
+// the rest commit together.
+@Service
+@Timed(value = "library.book.batch", histogram = true)
+public class BookBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookBatchService.class);
+
+    private final BookRepository bookRepository;
+    private final IdempotencyRecordRepository idempotencyRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxOperations;
+    private final Duration keyRetention;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public BookBatchService(BookRepository bookRepository,
+                            IdempotencyRecordRepository idempotencyRepository,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${library.batch.max-operations:1000}") int maxOperations,
+                            @Value("${library.batch.idempotency-key-retention:24h}") Duration keyRetention) {
+        this.bookRepository = bookRepository;
+        this.idempotencyRepository = idempotencyRepository;
+        this.eventPublisher = eventPublisher;
+        this.maxOperations = maxOperations;
+        this.keyRetention = keyRetention;
+    }
+
+    // Apply the operations and report the outcome of each, in request order.
+    // Throws DataIntegrityViolationException (nothing applied) if a concurrent writer took an
+    // ISBN or idempotency key after the checks; the batch can then be retried as is.
+    @Transactional
+    public BookBatchResult applyBatch(List<BookOperation> operations) {
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("Batch is empty");
+        }
+        if (operations.size() > maxOperations) {
+            throw new IllegalArgumentException("Batch has more than " + maxOperations + " operations");
+        }
+
+        Instant now = Instant.now();
+        BookBatchResult result = new BookBatchResult(operations.size());
+        Map<String, Integer> keys = replayKnownKeys(operations, now, result);
+        rejectInvalid(operations, result);
+        rejectMissingOrChangedBooks(operations, result);
+        rejectIsbnConflicts(operations, result);
+
+        // Deletes go first, so the ISBNs they free can be taken by the updates and creates
+        List<Long> deletedIds = new ArrayList<>();
+        List<Long> unconditional = new ArrayList<>();
+        Map<Long, Integer> updated = new LinkedHashMap<>();
+        Map<Integer, Book> created = new LinkedHashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            BookOperation operation = operations.get(i);
+            if (result.get(i) != null || operation.getType() != BookOperation.Type.DELETE) {
+                continue;
+            }
+            if (operation.getExpectedVersion() == null) {
+                unconditional.add(operation.getId());
+            } else if (bookRepository.deleteAtVersion(operation.getId(), operation.getExpectedVersion()) == 0) {
+                // Changed or deleted by a concurrent writer since the version check
+                result.set(i, changed(i, operation));
+                continue;
+            }
+            deletedIds.add(operation.getId());
+            result.set(i, OperationResult.applied(i, Status.DELETED, operation.getId(), null));
+        }
+        if (!unconditional.isEmpty()) {
+            bookRepository.deleteByIds(unconditional);
+        }
+        for (Long id : deletedIds) {
+            entityManager.persist(new BookTombstone(id, now));
+        }
+
+        for (int i = 0; i < operations.size(); i++) {
+            BookOperation operation = operations.get(i);
+            if (result.get(i) != null) {
+                continue;
+            }
+            Book book = operation.getBook();
+            if (operation.getType() == BookOperation.Type.UPDATE) {
+                int rows = bookRepository.updateFields(operation.getId(), operation.getExpectedVersion(),
+                        book.getTitle(), book.getAuthor(), book.getIsbn(), book.getPublishedDate(), now);
+                if (rows == 0 && operation.getExpectedVersion() != null) {
+                    // Changed or deleted by a concurrent writer since the version check
+                    result.set(i, changed(i, operation));
+                } else if (rows == 0) {
+                    // Deleted by a concurrent writer since the existence check
+                    result.set(i, OperationResult.rejected(i, Status.NOT_FOUND, operation.getId(),
+                            "Book not found with id: " + operation.getId()));
+                } else {
+                    updated.put(operation.getId(), i);
+                }
+            } else {
+                Book newBook = new Book(book.getTitle(), book.getAuthor(), book.getIsbn(), book.getPublishedDate());
+                entityManager.persist(newBook);
+                created.put(i, newBook);
+            }
+        }
+        // Through the repository, so constraint violations surface as DataIntegrityViolationException
+        bookRepository.flush();
+
+        for (Map.Entry<Integer, Book> entry : created.entrySet()) {
+            Book book = entry.getValue();
+            result.set(entry.getKey(), OperationResult.applied(entry.getKey(), Status.CREATED, book.getId(), book));
+            eventPublisher.publishEvent(BookChangeEvent.created(book));
+        }
+        if (!updated.isEmpty()) {
+            // The UPDATE statements bypassed the persistence context; read back the new versions
+            for (Book book : bookRepository.findAllById(updated.keySet())) {
+                int index = updated.get(book.getId());
+                result.set(index, OperationResult.applied(index, Status.UPDATED, book.getId(), book));
+                eventPublisher.publishEvent(BookChangeEvent.updated(book));
+            }
+        }
+        for (Long id : deletedIds) {
+            eventPublisher.publishEvent(BookChangeEvent.deleted(id));
+        }
+
+        recordKeys(operations, keys, result, now);
+        bookRepository.flush();
+
+        log.debug("Batch of {} operations applied {}", operations.size(), result.getApplied());
+        return result;
+    }
+
+    // Answer operations whose idempotency key was already used from the stored outcome.
+    // Returns the position of the first use of each key in this batch.
+    private Map<String, Integer> replayKnownKeys(List<BookOperation> operations, Instant now, BookBatchResult result) {
+        idempotencyRepository.deleteRecordedBefore(now.minus(keyRetention));
+
+        Map<String, Integer> keys = new HashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            BookOperation operation = operations.get(i);
+            String key = operation.getIdempotencyKey();
+            if (key != null && keys.putIfAbsent(key, i) != null) {
+                result.set(i, OperationResult.rejected(i, Status.INVALID, operation.getId(),
+                        "Idempotency key used more than once in the batch"));
+            }
+        }
+        if (keys.isEmpty()) {
+            return keys;
+        }
+
+        for (IdempotencyRecord record : idempotencyRepository.findAllById(keys.keySet())) {
+            int i = keys.get(record.getKey());
+            BookOperation operation = operations.get(i);
+            if (operation.getType() == null || !operation.getType().name().equals(record.getOperation())) {
+                result.set(i, OperationResult.rejected(i, Status.CONFLICT, operation.getId(),
+                        "Idempotency key was already used for a " + record.getOperation()));
+            } else {
+                result.set(i, OperationResult.replayed(i, Status.valueOf(record.getOutcome()), record.getBookId()));
+            }
+        }
+        return keys;
+    }
+
+    private void rejectInvalid(List<BookOperation> operations, BookBatchResult result) {
+        Set<Long> targets = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            BookOperation operation = operations.get(i);
+            if (result.get(i) != null) {
+                continue;
+            }
+            String problem = validate(operation, targets);
+            if (problem != null) {
+                result.set(i, OperationResult.rejected(i, Status.INVALID, operation.getId(), problem));
+            }
+        }
+    }
+
+    private static String validate(BookOperation operation, Set<Long> targets) {
+        if (operation.getType() == null) {
+            return "Operation type is required";
+        }
+        if (operation.getType() == BookOperation.Type.CREATE && operation.getExpectedVersion() != null) {
+            return "Expected version only applies to updates and deletes";
+        }
+        if (operation.getType() != BookOperation.Type.CREATE) {
+            if (operation.getId() == null) {
+                return "Id is required";
+            }
+            // Statements are grouped by type, so a second operation on a book could run out of order
+            if (!targets.add(operation.getId())) {
+                return "Book appears more than once in the batch";
+            }
+        }
+        if (operation.getType() != BookOperation.Type.DELETE) {
+            if (operation.getBook() == null) {
+                return "Book is required";
+            }
+            return BookImportService.validate(operation.getBook());
+        }
+        return null;
+    }
+
+    // Missing books are NOT_FOUND; books no longer at an operation's expected version are a CONFLICT
+    private void rejectMissingOrChangedBooks(List<BookOperation> operations, BookBatchResult result) {
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            if (result.get(i) == null && operations.get(i).getType() != BookOperation.Type.CREATE) {
+                ids.add(operations.get(i).getId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Long> versions = new HashMap<>();
+        for (BookRepository.IdVersion row : bookRepository.findVersions(ids)) {
+            versions.put(row.getId(), row.getVersion());
+        }
+        for (int i = 0; i < operations.size(); i++) {
+            BookOperation operation = operations.get(i);
+            if (result.get(i) != null || operation.getType() == BookOperation.Type.CREATE) {
+                continue;
+            }
+            Long version = versions.get(operation.getId());
+            if (version == null) {
+                result.set(i, OperationResult.rejected(i, Status.NOT_FOUND, operation.getId(),
+                        "Book not found with id: " + operation.getId()));
+            } else if (operation.getExpectedVersion() != null && !operation.getExpectedVersion().equals(version)) {
+                result.set(i, OperationResult.rejected(i, Status.CONFLICT, operation.getId(),
+                        "Book " + operation.getId() + " is at version " + version
+                                + ", not " + operation.getExpectedVersion()));
+            }
+        }
+    }
+
+    private static OperationResult changed(int index, BookOperation operation) {
+        return OperationResult.rejected(index, Status.CONFLICT, operation.getId(),
+                "Book " + operation.getId() + " is not at version " + operation.getExpectedVersion());
+    }
+
+    // An ISBN may be taken if nobody holds it, the updated book itself holds it, or its holder
+    // is deleted in this batch. ISBNs given up by other updates in the batch stay taken.
+    private void rejectIsbnConflicts(List<BookOperation> operations, BookBatchResult result) {
+        Set<Long> deleted = new HashSet<>();
+        Set<String> isbns = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            BookOperation operation = operations.get(i);
+            if (result.get(i) != null) {
+                continue;
+            }
+            if (operation.getType() == BookOperation.Type.DELETE) {
+                deleted.add(operation.getId());
+            } else {
+                isbns.add(operation.getBook().getIsbn());
+            }
+        }
+        if (isbns.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> owners = new HashMap<>();
+        for (BookRepository.IsbnOwner owner : bookRepository.findIsbnOwners(isbns)) {
+            owners.put(owner.getIsbn(), owner.getId());
+        }
+        Set<String> claimed = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            BookOperation operation = operations.get(i);
+            if (result.get(i) != null || operation.getType() == BookOperation.Type.DELETE) {
+                continue;
+            }
+            String isbn = operation.getBook().getIsbn();
+            Long owner = owners.get(isbn);
+            boolean free = owner == null || deleted.contains(owner)
+                    || (operation.getType() == BookOperation.Type.UPDATE && owner.equals(operation.getId()));
+            if (!free || !claimed.add(isbn)) {
+                result.set(i, OperationResult.rejected(i, Status.CONFLICT, operation.getId(), "ISBN already exists"));
+            }
+        }
+    }
+
+    // Remember the outcome of every applied operation that carried a key
+    private void recordKeys(List<BookOperation> operations, Map<String, Integer> keys,
+                            BookBatchResult result, Instant now) {
+        for (Map.Entry<String, Integer> key : keys.entrySet()) {
+            OperationResult outcome = result.get(key.getValue());
+            if (outcome.getStatus().isApplied() && !outcome.isReplayed()) {
+                entityManager.persist(new IdempotencyRecord(key.getKey(),
+                        operations.get(key.getValue()).getType().name(), outcome.getStatus().name(),
+                        outcome.getId(), now));
+            }
+        }
+    }
+}
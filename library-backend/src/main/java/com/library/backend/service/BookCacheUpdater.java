@@ -0,0 +1,106 @@
+package com.library.backend.service;
+
+import com.library.backend.event.BookChangeEvent;
+import com.library.backend.model.Book;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Objects;
+
+// Writes committed changes through to the books cache used by BookService.getBookById, and
+// guards the read-through loads that fill it. A load reads the database outside this lock, so a
+// change can be applied here while it runs; every change bumps a per-stripe stamp, and a load
+// only caches its row if its book's stripe has not changed since the load began.
+@Component
+public class BookCacheUpdater {
+
+    private static final int STRIPES = 1024;
+
+    private final Cache booksCache;
+    // Changes applied per stripe of book ids; guarded by this
+    private final long[] changeStamps = new long[STRIPES];
+
+    @Autowired
+    public BookCacheUpdater(CacheManager cacheManager) {
+        this.booksCache = Objects.requireNonNull(cacheManager.getCache(BookService.BOOKS_CACHE),
+                "Cache '" + BookService.BOOKS_CACHE + "' is not configured");
+    }
+
+    @TransactionalEventListener
+    public void onBookChange(BookChangeEvent event) {
+        switch (event.getType()) {
+            // Misses are not cached, so a new id has nothing to invalidate
+            case CREATED -> { }
+            // Refresh rather than evict, so the next read does not have to go to the database
+            case UPDATED -> putIfNewer(event.getBook());
+            case DELETED -> evict(event.getBookId());
+        }
+    }
+
+    // The cached copy, or null. Callers get their own copy, so they cannot change the cache.
+    public Book get(Long id) {
+        Book cached = booksCache.get(id, Book.class);
+        return cached == null ? null : new Book(cached);
+    }
+
+    // Taken before a read-through load reads the database; pass it to putLoaded
+    public synchronized long loadStamp(Long id) {
+        return changeStamps[stripe(id)];
+    }
+
+    // Cache a row read by a load that began at stamp, unless the book may have changed (or
+    // been deleted) since: the row would then be older than what the cache was told.
+    public synchronized void putLoaded(Book book, long stamp) {
+        if (changeStamps[stripe(book.getId())] == stamp) {
+            putNewer(book);
+        }
+    }
+
+    // Cache the book unless the cached copy is already at this version or a later one.
+    // Commits can reach the listener out of order; clients sending If-Match would keep failing
+    // on a cached row older than the database's.
+    public synchronized void putIfNewer(Book book) {
+        changed(book.getId());
+        putNewer(book);
+    }
+
+    // Replace the cached copy if it is older than this book; a book that is not cached stays
+    // that way. Used for changes made on other nodes of a cluster.
+    public synchronized void refreshIfCached(Book book) {
+        changed(book.getId());
+        Book cached = booksCache.get(book.getId(), Book.class);
+        if (cached != null && (cached.getVersion() == null || cached.getVersion() < book.getVersion())) {
+            booksCache.put(book.getId(), new Book(book));
+        }
+    }
+
+    public synchronized void evict(Long id) {
+        changed(id);
+        booksCache.evict(id);
+    }
+
+    public synchronized void evictAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            changeStamps[i]++;
+        }
+        booksCache.clear();
+    }
+
+    private void putNewer(Book book) {
+        Book cached = booksCache.get(book.getId(), Book.class);
+        if (cached == null || cached.getVersion() == null || cached.getVersion() < book.getVersion()) {
+            booksCache.put(book.getId(), new Book(book));
+        }
+    }
+
+    private void changed(Long id) {
+        changeStamps[stripe(id)]++;
+    }
+
+    private static int stripe(Long id) {
+        return Long.hashCode(id) & (STRIPES - 1);
+    }
+}
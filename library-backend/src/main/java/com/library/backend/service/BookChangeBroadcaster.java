@@ -0,0 +1,229 @@
+package com.library.backend.service;
+
+import com.library.backend.dto.BookChanges;
+import com.library.backend.event.BookChangeEvent;
+import com.library.backend.model.Book;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Pushes committed book changes to Server-Sent Events subscribers.
+// Changes are coalesced per book id and flushed as one "changes" event (a BookChanges delta)
+// every FLUSH_INTERVAL, so a burst of writes costs subscribers one message. Each subscriber
+// is sent to on its own and keeps a coalesced backlog while a send is in progress; a backlog
+// that outgrows MAX_BACKLOG is dropped and replaced by a "resync" event, telling the client
+// to catch up through /api/books/changes. A slow client therefore holds bounded memory.
+// Sends run on a fixed pool of sender threads, and a subscriber has at most one drain queued,
+// so the queue never outgrows the subscriber count; a client that blocks its send holds one
+// thread while the others share the rest.
+@Component
+public class BookChangeBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(BookChangeBroadcaster.class);
+
+    private static final long FLUSH_INTERVAL_MS = 250;
+    private static final int MAX_BACKLOG = 10_000;
+    // A comment line every so often keeps idle connections open and reveals dead ones
+    private static final long HEARTBEAT_INTERVAL_MS = 30_000;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Book id -> latest state since the last flush; a null value means the book was deleted
+    private final Map<Long, Book> pending = new LinkedHashMap<>();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            runnable -> daemon(runnable, "book-change-flusher"));
+    private final ExecutorService senders;
+
+    @Autowired
+    public BookChangeBroadcaster(@Value("${library.change-stream.sender-threads:4}") int senderThreads) {
+        this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> daemon(runnable, "book-change-sender"));
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_INTERVAL_MS, HEARTBEAT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Open a stream for one client. It first receives a "ready" event; anything it missed
+    // before that must be fetched through /api/books/changes.
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        subscriber.send(SseEmitter.event().name("ready").data(""));
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener
+    public void onBookChange(BookChangeEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Book book = event.getBook() != null ? new Book(event.getBook()) : null;
+        synchronized (pending) {
+            pending.put(event.getBookId(), book);
+        }
+    }
+
+    // Send every subscriber a "resync", e.g. when this node may have missed changes made on
+    // other nodes of a cluster
+    public void resyncAll() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.resync();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    private void flush() {
+        Map<Long, Book> changes;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            changes = new LinkedHashMap<>(pending);
+            pending.clear();
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(changes);
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat();
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+
+        // Coalesced changes waiting for the send in progress, same encoding as pending
+        private final Map<Long, Book> backlog = new LinkedHashMap<>();
+        private boolean overflowed;
+        private boolean draining;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private synchronized void offer(Map<Long, Book> changes) {
+            if (!overflowed) {
+                backlog.putAll(changes);
+                if (backlog.size() > MAX_BACKLOG) {
+                    backlog.clear();
+                    overflowed = true;
+                }
+            }
+            startDraining();
+        }
+
+        private synchronized void resync() {
+            backlog.clear();
+            overflowed = true;
+            startDraining();
+        }
+
+        private synchronized void heartbeat() {
+            if (!draining && backlog.isEmpty() && !overflowed) {
+                draining = true;
+                senders.execute(() -> {
+                    send(SseEmitter.event().comment("keepalive"));
+                    drain();
+                });
+            }
+        }
+
+        private void startDraining() {
+            if (!draining) {
+                draining = true;
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder event;
+                synchronized (this) {
+                    if (overflowed) {
+                        overflowed = false;
+                        event = SseEmitter.event().name("resync").data("");
+                    } else if (!backlog.isEmpty()) {
+                        event = SseEmitter.event().name("changes").data(toChanges(backlog), MediaType.APPLICATION_JSON);
+                        backlog.clear();
+                    } else {
+                        draining = false;
+                        return;
+                    }
+                }
+                if (!send(event)) {
+                    return;
+                }
+            }
+        }
+
+        private boolean send(SseEmitter.SseEventBuilder event) {
+            try {
+                emitter.send(event);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping change stream subscriber: {}", e.getMessage());
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+    }
+
+    private static BookChanges toChanges(Map<Long, Book> changes) {
+        List<Book> upserts = new ArrayList<>();
+        List<Long> deletions = new ArrayList<>();
+        for (Map.Entry<Long, Book> change : changes.entrySet()) {
+            if (change.getValue() != null) {
+                upserts.add(change.getValue());
+            } else {
+                deletions.add(change.getKey());
+            }
+        }
+        long nextSince = Instant.now().minus(BookService.CHANGE_FEED_OVERLAP).toEpochMilli();
+        return new BookChanges(upserts, deletions, nextSince);
+    }
+}
@@ -0,0 +1,199 @@
+package com.library.backend.service;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.library.backend.dto.BookImportResult;
+import com.library.backend.event.BookChangeEvent;
+import com.library.backend.model.Book;
+import com.library.backend.repository.BookRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+// Bulk ingest of books in chunks, one transaction per chunk.
+// Books use a pooled sequence for ids, so Hibernate can send each chunk as JDBC batches
+// (see hibernate.jdbc.batch_size in application.properties).
+@Service
+@Timed(value = "library.book.import", histogram = true)
+public class BookImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int defaultChunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public BookImportService(BookRepository bookRepository,
+                             PlatformTransactionManager transactionManager,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${library.bulk-import.chunk-size:1000}") int defaultChunkSize) {
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.defaultChunkSize = defaultChunkSize;
+    }
+
+    public BookImportResult importBooks(Iterator<Book> books) {
+        return importBooks(books, defaultChunkSize);
+    }
+
+    // Import books in chunks of the given size; rows that cannot be stored are reported, not fatal.
+    // A body that turns out to be malformed midway stops the import there: the chunks before it
+    // are already committed, so the rows read up to that point are stored too, and the result
+    // says where parsing stopped.
+    public BookImportResult importBooks(Iterator<Book> books, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+
+        BookImportResult result = new BookImportResult();
+        List<Book> chunk = new ArrayList<>(chunkSize);
+        long row = 0;
+        long chunkStart = 0;
+        try {
+            while (books.hasNext()) {
+                chunk.add(books.next());
+                row++;
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, chunkStart, result);
+                    chunk.clear();
+                    chunkStart = row;
+                }
+            }
+        } catch (RuntimeException e) {
+            // MappingIterator wraps malformed input in an unchecked exception
+            if (!(e.getCause() instanceof JsonProcessingException parseError)) {
+                throw e;
+            }
+            result.setParseFailure(row, offsetOf(parseError), parseError.getOriginalMessage());
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, chunkStart, result);
+        }
+
+        log.debug("Bulk import stored {} books, rejected {}", result.getImported(), result.getFailures().size());
+        return result;
+    }
+
+    // Result for a body that is malformed before its first row
+    public BookImportResult unreadable(JsonProcessingException parseError) {
+        BookImportResult result = new BookImportResult();
+        result.setParseFailure(0, offsetOf(parseError), parseError.getOriginalMessage());
+        return result;
+    }
+
+    private static long offsetOf(JsonProcessingException parseError) {
+        JsonLocation location = parseError.getLocation();
+        if (location == null) {
+            return -1;
+        }
+        return location.getByteOffset() >= 0 ? location.getByteOffset() : location.getCharOffset();
+    }
+
+    private void importChunk(List<Book> chunk, long firstRow, BookImportResult result) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertChunk(chunk, firstRow, result));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent writer took one of the ISBNs after our check; fall back to row by row
+            log.debug("Chunk starting at row {} hit a constraint violation, retrying row by row", firstRow);
+            for (int i = 0; i < chunk.size(); i++) {
+                insertRow(chunk.get(i), firstRow + i, result);
+            }
+        }
+    }
+
+    private void insertChunk(List<Book> chunk, long firstRow, BookImportResult result) {
+        Set<String> isbns = new HashSet<>();
+        for (Book book : chunk) {
+            if (book.getIsbn() != null) {
+                isbns.add(book.getIsbn());
+            }
+        }
+        Set<String> taken = new HashSet<>(bookRepository.findExistingIsbns(isbns));
+
+        List<Book> accepted = new ArrayList<>(chunk.size());
+        List<BookImportResult.RowFailure> rejected = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Book book = chunk.get(i);
+            String problem = validate(book);
+            if (problem == null && !taken.add(book.getIsbn())) {
+                problem = "ISBN already exists";
+            }
+            if (problem != null) {
+                rejected.add(new BookImportResult.RowFailure(firstRow + i, book.getIsbn(), problem));
+            } else {
+                accepted.add(book);
+            }
+        }
+
+        bookRepository.saveAll(accepted);
+        entityManager.flush();
+        entityManager.clear();
+        for (Book book : accepted) {
+            eventPublisher.publishEvent(BookChangeEvent.created(book));
+        }
+
+        // Only record the outcome once the chunk is known to have been written
+        result.addImported(accepted.size());
+        for (BookImportResult.RowFailure failure : rejected) {
+            result.addFailure(failure.getRow(), failure.getIsbn(), failure.getReason());
+        }
+    }
+
+    private void insertRow(Book book, long row, BookImportResult result) {
+        String problem = validate(book);
+        if (problem != null) {
+            result.addFailure(row, book.getIsbn(), problem);
+            return;
+        }
+
+        book.setId(null);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Book savedBook = bookRepository.saveAndFlush(book);
+                eventPublisher.publishEvent(BookChangeEvent.created(savedBook));
+            });
+            result.addImported(1);
+        } catch (DataIntegrityViolationException e) {
+            result.addFailure(row, book.getIsbn(), "ISBN already exists");
+        }
+    }
+
+    // Reason a book cannot be stored, or null; shared with BookBatchService
+    static String validate(Book book) {
+        if (isBlank(book.getTitle())) {
+            return "Title is required";
+        }
+        if (isBlank(book.getAuthor())) {
+            return "Author is required";
+        }
+        if (isBlank(book.getIsbn())) {
+            return "ISBN is required";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,617 @@
+package com.library.backend.service;
+
+import com.library.backend.datasource.ReadReplicaRoutingDataSource;
+import com.library.backend.dto.FacetCount;
+import com.library.backend.event.BookChangeEvent;
+import com.library.backend.model.Book;
+import com.library.backend.repository.BookRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// In-memory trigram index over title and author.
+// Answers the same case-insensitive substring queries as BookRepository.searchBooks
+// without scanning the books table: candidates come from intersecting the posting
+// lists of the search term's trigrams and are then verified against the text.
+// Terms shorter than a trigram are answered by walking the books in id order until the page
+// is full, with the match count kept per one- and two-letter string.
+// Also keeps per-author and per-year book counts for the browse facets, so those need no
+// GROUP BY over the books table, and a word-level index for ranked, typo-tolerant search.
+@Component
+public class BookSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private static final int GRAM_SIZE = 3;
+
+    // Rows loaded before the persistence context is cleared during a rebuild
+    private static final int REBUILD_CLEAR_INTERVAL = 1000;
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Book id -> indexed snapshot
+    private final Map<Long, Entry> entries = new HashMap<>();
+    // Every indexed id in ascending order, for terms too short to have a trigram
+    private final PostingList allIds = new PostingList();
+    // Trigram -> sorted ids of the books containing it
+    private final Map<String, PostingList> postings = new HashMap<>();
+    // One- or two-letter string -> number of books containing it
+    private final Map<String, Integer> shortTermCounts = new HashMap<>();
+    // Facet counters over all indexed books
+    private final Map<String, Integer> authorCounts = new HashMap<>();
+    private final Map<Integer, Integer> yearCounts = new HashMap<>();
+    private final RankedTermIndex rankedTerms = new RankedTermIndex();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public BookSearchIndex(BookRepository bookRepository, PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    // Build the index from the database on startup.
+    // Streams the catalog so a large persistent database is never materialized as one list.
+    // Reads the primary: changes a replica has not seen yet would never reach the index.
+    @PostConstruct
+    public void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            allIds.clear();
+            postings.clear();
+            shortTermCounts.clear();
+            authorCounts.clear();
+            yearCounts.clear();
+            rankedTerms.clear();
+            ReadReplicaRoutingDataSource.onPrimary(() -> transactionTemplate.execute(status -> {
+                try (Stream<Book> books = bookRepository.streamAll()) {
+                    Iterator<Book> iterator = books.iterator();
+                    while (iterator.hasNext()) {
+                        put(iterator.next());
+                        if (entries.size() % REBUILD_CLEAR_INTERVAL == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                }
+                return null;
+            }));
+            log.info("Indexed {} books for search in {} ms", entries.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Keep the index in sync with committed writes
+    @TransactionalEventListener
+    public void onBookChange(BookChangeEvent event) {
+        switch (event.getType()) {
+            case CREATED, UPDATED -> index(event.getBook());
+            case DELETED -> remove(event.getBookId());
+        }
+    }
+
+    // Add or replace a book in the index. A snapshot older than the indexed one is ignored:
+    // in a cluster, a change reloaded from another node can overtake a local commit's event.
+    public void index(Book book) {
+        lock.writeLock().lock();
+        try {
+            Entry indexed = entries.get(book.getId());
+            if (indexed != null && indexed.book.getVersion() != null && book.getVersion() != null
+                    && indexed.book.getVersion() > book.getVersion()) {
+                return;
+            }
+            put(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Remove a book from the index
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Books whose title or author contains the term (case-insensitive), ordered by id
+    public List<Book> search(String searchTerm) {
+        lock.readLock().lock();
+        try {
+            List<Entry> matches = findMatches(normalize(searchTerm), 0, Integer.MAX_VALUE);
+            List<Book> books = new ArrayList<>(matches.size());
+            for (Entry entry : matches) {
+                books.add(new Book(entry.book));
+            }
+            return books;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Same as search(String), but only copies out the requested page. Short terms stop
+    // walking the catalog once the page is full; their total comes from the counters.
+    public Page<Book> search(String searchTerm, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            String term = normalize(searchTerm);
+            List<Entry> page;
+            long total;
+            if (term.length() < GRAM_SIZE) {
+                int offset = (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE);
+                page = findMatches(term, offset, pageable.getPageSize());
+                total = term.isEmpty() ? entries.size() : shortTermCounts.getOrDefault(term, 0);
+            } else {
+                List<Entry> matches = findMatches(term, 0, Integer.MAX_VALUE);
+                int from = (int) Math.min(pageable.getOffset(), matches.size());
+                int to = Math.min(from + pageable.getPageSize(), matches.size());
+                page = matches.subList(from, to);
+                total = matches.size();
+            }
+            List<Book> content = new ArrayList<>(page.size());
+            for (Entry entry : page) {
+                content.add(new Book(entry.book));
+            }
+            return new PageImpl<>(content, pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Books relevant to the query words, best first: BM25 over title and author words,
+    // tolerating typos (one edit in words of 4-6 letters, two in longer ones)
+    public List<Book> searchRanked(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Long> ids = rankedTerms.search(RankedTermIndex.tokenize(normalize(query)), limit);
+            List<Book> books = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                books.add(new Book(entries.get(id).book));
+            }
+            return books;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Top authors by number of books; with a search term, only among the books it matches
+    public List<FacetCount> authorFacets(String searchTerm, int limit) {
+        lock.readLock().lock();
+        try {
+            if (searchTerm == null || searchTerm.isEmpty()) {
+                return top(authorCounts, Function.identity(), limit);
+            }
+            Map<String, Integer> counts = new HashMap<>();
+            for (Entry entry : findMatches(normalize(searchTerm), 0, Integer.MAX_VALUE)) {
+                counts.merge(entry.book.getAuthor(), 1, Integer::sum);
+            }
+            return top(counts, Function.identity(), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Top publication years (or decades) by number of books; books without a date are not counted
+    public List<FacetCount> yearFacets(String searchTerm, boolean byDecade, int limit) {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> counts;
+            if (searchTerm == null || searchTerm.isEmpty()) {
+                counts = yearCounts;
+            } else {
+                counts = new HashMap<>();
+                for (Entry entry : findMatches(normalize(searchTerm), 0, Integer.MAX_VALUE)) {
+                    if (entry.book.getPublishedDate() != null) {
+                        counts.merge(entry.book.getPublishedDate().getYear(), 1, Integer::sum);
+                    }
+                }
+            }
+            if (!byDecade) {
+                return top(counts, String::valueOf, limit);
+            }
+            Map<Integer, Integer> decades = new HashMap<>();
+            counts.forEach((year, count) -> decades.merge(Math.floorDiv(year, 10) * 10, count, Integer::sum));
+            return top(decades, decade -> decade + "s", limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The `limit` largest counts, ties broken by label, through a bounded min-heap
+    private static <K> List<FacetCount> top(Map<K, Integer> counts, Function<K, String> label, int limit) {
+        Comparator<FacetCount> order = Comparator.comparingLong(FacetCount::getCount).reversed()
+                .thenComparing(FacetCount::getValue);
+        PriorityQueue<FacetCount> heap = new PriorityQueue<>(order.reversed());
+        for (Map.Entry<K, Integer> count : counts.entrySet()) {
+            heap.add(new FacetCount(label.apply(count.getKey()), count.getValue()));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<FacetCount> result = new ArrayList<>(heap);
+        result.sort(order);
+        return result;
+    }
+
+    // Matches in id order, skipping the first `skip` and returning at most `limit`
+    private List<Entry> findMatches(String term, int skip, int limit) {
+        if (term.length() < GRAM_SIZE) {
+            return findShortMatches(term, skip, limit);
+        }
+
+        Set<String> grams = gramsOf(term);
+        PostingList[] lists = new PostingList[grams.size()];
+        int i = 0;
+        for (String gram : grams) {
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                return Collections.emptyList();
+            }
+            lists[i++] = list;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+        // Walk the rarest trigram's postings and probe the others
+        List<Entry> matches = new ArrayList<>();
+        candidates:
+        for (PostingList.Cursor cursor = lists[0].cursor(); cursor.hasNext(); ) {
+            long id = cursor.next();
+            for (int l = 1; l < lists.length; l++) {
+                if (!lists[l].contains(id)) {
+                    continue candidates;
+                }
+            }
+            Entry entry = entries.get(id);
+            if (entry.matches(term)) {
+                matches.add(entry);
+            }
+        }
+        return matches.subList(Math.min(skip, matches.size()),
+                (int) Math.min((long) skip + limit, matches.size()));
+    }
+
+    // Too short to have a trigram. The empty term is a slice of the id list; other short terms
+    // match a large share of the catalog, so walking it in id order fills a page quickly.
+    private List<Entry> findShortMatches(String term, int skip, int limit) {
+        List<Entry> matches = new ArrayList<>(Math.min(limit, 1024));
+        PostingList.Cursor cursor = allIds.cursor();
+        if (term.isEmpty()) {
+            cursor.skip(skip);
+            while (cursor.hasNext() && matches.size() < limit) {
+                matches.add(entries.get(cursor.next()));
+            }
+            return matches;
+        }
+        if (!shortTermCounts.containsKey(term)) {
+            return matches;
+        }
+        int skipped = 0;
+        while (cursor.hasNext() && matches.size() < limit) {
+            Entry entry = entries.get(cursor.next());
+            if (entry.matches(term) && skipped++ >= skip) {
+                matches.add(entry);
+            }
+        }
+        return matches;
+    }
+
+    // Add a book, or replace the indexed one. An edit keeps the id and most trigrams, so only
+    // the trigrams it changes touch the postings.
+    private void put(Book book) {
+        long id = book.getId();
+        Entry entry = new Entry(new Book(book));
+        Entry previous = entries.put(id, entry);
+        Set<String> grams = entry.grams();
+        Set<String> previousGrams = previous != null ? previous.grams() : Set.of();
+        if (previous == null) {
+            allIds.add(id);
+        } else {
+            uncount(id, previous);
+        }
+        for (String gram : previousGrams) {
+            if (!grams.contains(gram)) {
+                removePosting(gram, id);
+            }
+        }
+        for (String gram : grams) {
+            if (!previousGrams.contains(gram)) {
+                postings.computeIfAbsent(gram, g -> new PostingList()).add(id);
+            }
+        }
+        count(id, entry);
+    }
+
+    private void removeEntry(Long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        allIds.remove(id);
+        for (String gram : entry.grams()) {
+            removePosting(gram, id);
+        }
+        uncount(id, entry);
+    }
+
+    private void removePosting(String gram, long id) {
+        PostingList list = postings.get(gram);
+        if (list != null && list.remove(id) && list.size == 0) {
+            postings.remove(gram);
+        }
+    }
+
+    // Short-term counts, ranked terms and facets of an entry
+    private void count(long id, Entry entry) {
+        for (String shortTerm : entry.shortTerms()) {
+            shortTermCounts.merge(shortTerm, 1, Integer::sum);
+        }
+        rankedTerms.add(id, entry.titleWords, entry.authorWords);
+        authorCounts.merge(entry.book.getAuthor(), 1, Integer::sum);
+        if (entry.book.getPublishedDate() != null) {
+            yearCounts.merge(entry.book.getPublishedDate().getYear(), 1, Integer::sum);
+        }
+    }
+
+    private void uncount(long id, Entry entry) {
+        for (String shortTerm : entry.shortTerms()) {
+            decrement(shortTermCounts, shortTerm);
+        }
+        rankedTerms.remove(id, entry.titleWords, entry.authorWords);
+        decrement(authorCounts, entry.book.getAuthor());
+        if (entry.book.getPublishedDate() != null) {
+            decrement(yearCounts, entry.book.getPublishedDate().getYear());
+        }
+    }
+
+    private static <K> void decrement(Map<K, Integer> counts, K key) {
+        counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> gramsOf(String text) {
+        return substringsOf(text, GRAM_SIZE);
+    }
+
+    private static Set<String> substringsOf(String text, int length) {
+        Set<String> substrings = new LinkedHashSet<>();
+        for (int i = 0; i + length <= text.length(); i++) {
+            substrings.add(text.substring(i, i + length));
+        }
+        return substrings;
+    }
+
+    private static final class Entry {
+        private final Book book;
+        private final String title;
+        private final String author;
+        private final List<String> titleWords;
+        private final List<String> authorWords;
+
+        private Entry(Book book) {
+            this.book = book;
+            this.title = normalize(book.getTitle());
+            this.author = normalize(book.getAuthor());
+            this.titleWords = RankedTermIndex.tokenize(title);
+            this.authorWords = RankedTermIndex.tokenize(author);
+        }
+
+        private boolean matches(String term) {
+            return title.contains(term) || author.contains(term);
+        }
+
+        private Set<String> grams() {
+            Set<String> grams = gramsOf(title);
+            grams.addAll(gramsOf(author));
+            return grams;
+        }
+
+        // Every one- and two-letter string in the title or author, each once
+        private Set<String> shortTerms() {
+            Set<String> terms = new HashSet<>();
+            for (int length = 1; length < GRAM_SIZE; length++) {
+                terms.addAll(substringsOf(title, length));
+                terms.addAll(substringsOf(author, length));
+            }
+            return terms;
+        }
+    }
+
+    // Sorted set of book ids: a sorted primitive array plus small sorted buffers of the ids
+    // added to and removed from it since it was last merged. A write shifts only a buffer, and
+    // the buffers are merged into the array once they outgrow about its square root, so a
+    // write costs O(sqrt n) amortized instead of shifting the whole array. Reads merge on the
+    // fly. New books have the highest ids, so they are appended to the array directly.
+    private static final class PostingList {
+        private static final int MIN_BUFFER = 32;
+
+        private long[] ids = new long[4];
+        private int baseSize;
+        private long[] added = new long[4];
+        private int addedSize;
+        // Subset of ids[0, baseSize)
+        private long[] removed = new long[4];
+        private int removedSize;
+        private int size;
+
+        private void add(long id) {
+            if (addedSize == 0 && (baseSize == 0 || ids[baseSize - 1] < id)) {
+                if (baseSize == ids.length) {
+                    ids = Arrays.copyOf(ids, baseSize * 2);
+                }
+                ids[baseSize++] = id;
+            } else if (Arrays.binarySearch(ids, 0, baseSize, id) >= 0) {
+                int pos = Arrays.binarySearch(removed, 0, removedSize, id);
+                if (pos < 0) {
+                    return;
+                }
+                removedSize = deleteAt(removed, removedSize, pos);
+            } else {
+                int pos = Arrays.binarySearch(added, 0, addedSize, id);
+                if (pos >= 0) {
+                    return;
+                }
+                added = insertAt(added, addedSize++, -pos - 1, id);
+                mergeIfFull();
+            }
+            size++;
+        }
+
+        private boolean remove(long id) {
+            if (Arrays.binarySearch(ids, 0, baseSize, id) >= 0) {
+                int pos = Arrays.binarySearch(removed, 0, removedSize, id);
+                if (pos >= 0) {
+                    return false;
+                }
+                removed = insertAt(removed, removedSize++, -pos - 1, id);
+                mergeIfFull();
+            } else {
+                int pos = Arrays.binarySearch(added, 0, addedSize, id);
+                if (pos < 0) {
+                    return false;
+                }
+                addedSize = deleteAt(added, addedSize, pos);
+            }
+            size--;
+            return true;
+        }
+
+        private boolean contains(long id) {
+            if (Arrays.binarySearch(ids, 0, baseSize, id) >= 0) {
+                return removedSize == 0 || Arrays.binarySearch(removed, 0, removedSize, id) < 0;
+            }
+            return addedSize > 0 && Arrays.binarySearch(added, 0, addedSize, id) >= 0;
+        }
+
+        private Cursor cursor() {
+            return new Cursor();
+        }
+
+        private void clear() {
+            ids = new long[4];
+            baseSize = 0;
+            added = new long[4];
+            addedSize = 0;
+            removed = new long[4];
+            removedSize = 0;
+            size = 0;
+        }
+
+        private void mergeIfFull() {
+            if (addedSize + removedSize <= Math.max(MIN_BUFFER, (int) Math.sqrt(baseSize))) {
+                return;
+            }
+            long[] merged = new long[size + 1 + size / 8];
+            int count = 0;
+            for (Cursor cursor = cursor(); cursor.hasNext(); ) {
+                merged[count++] = cursor.next();
+            }
+            ids = merged;
+            baseSize = count;
+            addedSize = 0;
+            removedSize = 0;
+        }
+
+        private static long[] insertAt(long[] array, int size, int pos, long id) {
+            if (size == array.length) {
+                array = Arrays.copyOf(array, size * 2);
+            }
+            System.arraycopy(array, pos, array, pos + 1, size - pos);
+            array[pos] = id;
+            return array;
+        }
+
+        private static int deleteAt(long[] array, int size, int pos) {
+            System.arraycopy(array, pos + 1, array, pos, size - pos - 1);
+            return size - 1;
+        }
+
+        // The ids in ascending order: the array without the removed ones, merged with the added
+        private final class Cursor {
+            private int base;
+            private int addedPos;
+            private int removedPos;
+
+            private boolean hasNext() {
+                skipRemoved();
+                return base < baseSize || addedPos < addedSize;
+            }
+
+            private long next() {
+                skipRemoved();
+                if (addedPos < addedSize && (base == baseSize || added[addedPos] < ids[base])) {
+                    return added[addedPos++];
+                }
+                return ids[base++];
+            }
+
+            // Past the first n ids; a jump once no buffered id lies ahead
+            private void skip(int n) {
+                while (n > 0 && hasNext()) {
+                    if (addedPos == addedSize && removedPos == removedSize) {
+                        base = (int) Math.min(baseSize, (long) base + n);
+                        return;
+                    }
+                    next();
+                    n--;
+                }
+            }
+
+            private void skipRemoved() {
+                while (base < baseSize && removedPos < removedSize && removed[removedPos] <= ids[base]) {
+                    if (removed[removedPos] == ids[base]) {
+                        base++;
+                    }
+                    removedPos++;
+                }
+            }
+        }
+    }
+}
@@ -1,74 +1,306 @@
 package com.library.backend.service;
 
+import com.library.backend.dto.BookChanges;
+import com.library.backend.dto.BookCursor;
+import com.library.backend.dto.BookFacets;
+import com.library.backend.dto.BookSlice;
+import com.library.backend.datasource.ReadReplicaRoutingDataSource;
+import com.library.backend.event.BookChangeEvent;
 import com.library.backend.model.Book;
+import com.library.backend.model.BookTombstone;
 import com.library.backend.repository.BookRepository;
+import com.library.backend.repository.BookTombstoneRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
+@Timed(value = "library.book.service", histogram = true)
 public class BookService {
 
+    public static final String BOOKS_CACHE = "books";
+
+    // How many exported rows may accumulate in the persistence context before it is cleared
+    private static final int EXPORT_CLEAR_INTERVAL = 1000;
+
+    // A write can commit after a later-stamped one is already visible, so the change feed's
+    // next cursor trails the clock by this much; replaying the overlap is harmless
+    public static final Duration CHANGE_FEED_OVERLAP = Duration.ofSeconds(5);
+
     private final BookRepository bookRepository;
+    private final BookTombstoneRepository tombstoneRepository;
+    private final BookSearchIndex searchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ConflictRetryPolicy retryPolicy;
+    private final BookCacheUpdater cacheUpdater;
+    private final CatalogVersionTracker catalogVersion;
+    private final DistributionSummary searchResultSizes;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, BookTombstoneRepository tombstoneRepository,
+                       BookSearchIndex searchIndex, ApplicationEventPublisher eventPublisher,
+                       ConflictRetryPolicy retryPolicy, BookCacheUpdater cacheUpdater,
+                       CatalogVersionTracker catalogVersion, MeterRegistry meterRegistry) {
         this.bookRepository = bookRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.searchIndex = searchIndex;
+        this.eventPublisher = eventPublisher;
+        this.retryPolicy = retryPolicy;
+        this.cacheUpdater = cacheUpdater;
+        this.catalogVersion = catalogVersion;
+        this.searchResultSizes = DistributionSummary.builder("library.search.results")
+                .description("Books returned per search")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     // Create a new book
     public Book createBook(Book book) {
-        return bookRepository.save(book);
+        Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(BookChangeEvent.created(savedBook));
+        return savedBook;
     }
 
     // Get all books
+    @Transactional(readOnly = true)
     public List<Book> getAllBooks() {
         return bookRepository.findAll();
     }
 
-    // Get book by ID
+    // Stream all books in id order to the consumer without holding them in memory.
+    // Returns the number of books exported.
+    @Transactional(readOnly = true)
+    public long exportBooks(Consumer<Book> consumer) {
+        long count = 0;
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            Iterator<Book> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                if (++count % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+
+    // Get book by ID - read through the books cache, kept fresh by BookCacheUpdater, which
+    // drops a loaded row if the book changed while it was read. A hit opens no transaction; a
+    // miss reads the primary, as an entry outlives any replica lag.
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<Book> getBookById(Long id) {
-        return bookRepository.findById(id);
+        Book cached = cacheUpdater.get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long stamp = cacheUpdater.loadStamp(id);
+        Optional<Book> book = ReadReplicaRoutingDataSource.onPrimary(() -> bookRepository.findById(id));
+        book.ifPresent(loaded -> cacheUpdater.putLoaded(loaded, stamp));
+        return book;
     }
 
-    // Update book
+    // Update book, last writer wins
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Book updateBook(Long id, Book bookDetails) {
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Book not found with id: " + id));
+        return updateBook(id, bookDetails, null);
+    }
 
-        book.setTitle(bookDetails.getTitle());
-        book.setAuthor(bookDetails.getAuthor());
-        book.setIsbn(bookDetails.getIsbn());
-        book.setPublishedDate(bookDetails.getPublishedDate());
+    // Update book. With an expectedVersion the update only happens if the book is still at that
+    // version (BookVersionMismatchException otherwise); without one, an update that races a
+    // concurrent writer is retried on the fresh row instead of overwriting it blindly.
+    // Each attempt runs in its own transaction, so this must not join the caller's.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Book updateBook(Long id, Book bookDetails, Long expectedVersion) {
+        return conditionally(id, expectedVersion, () -> {
+            Book book = bookRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Book not found with id: " + id));
+            checkVersion(book, expectedVersion);
 
-        return bookRepository.save(book);
+            book.setTitle(bookDetails.getTitle());
+            book.setAuthor(bookDetails.getAuthor());
+            book.setIsbn(bookDetails.getIsbn());
+            book.setPublishedDate(bookDetails.getPublishedDate());
+
+            // Flush now, so a lost race fails this attempt instead of the commit
+            Book savedBook = bookRepository.saveAndFlush(book);
+            eventPublisher.publishEvent(BookChangeEvent.updated(savedBook));
+            return savedBook;
+        });
     }
 
     // Delete book
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void deleteBook(Long id) {
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Book not found with id: " + id));
-        bookRepository.delete(book);
+        deleteBook(id, null);
+    }
+
+    // Delete book, optionally only if it is still at expectedVersion (see updateBook)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void deleteBook(Long id, Long expectedVersion) {
+        conditionally(id, expectedVersion, () -> {
+            Book book = bookRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Book not found with id: " + id));
+            checkVersion(book, expectedVersion);
+            bookRepository.delete(book);
+            entityManager.persist(new BookTombstone(id, Instant.now()));
+            bookRepository.flush();
+            eventPublisher.publishEvent(BookChangeEvent.deleted(id));
+            return null;
+        });
+    }
+
+    // Unconditional writes are retried on conflict. A conflict on a conditional write means
+    // the expected version was replaced while it ran, which is a failed precondition.
+    private <T> T conditionally(Long id, Long expectedVersion, Supplier<T> write) {
+        if (expectedVersion == null) {
+            return retryPolicy.execute(write);
+        }
+        try {
+            return retryPolicy.executeOnce(write);
+        } catch (ConcurrencyFailureException e) {
+            throw new BookVersionMismatchException(id, expectedVersion, null);
+        }
+    }
+
+    private void checkVersion(Book book, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(book.getVersion())) {
+            // The client may have read its version from a stale cache entry; fix that first
+            cacheUpdater.putIfNewer(book);
+            throw new BookVersionMismatchException(book.getId(), expectedVersion, book.getVersion());
+        }
+    }
+
+    // Token that changes with every committed write to the catalog; used as the ETag of the
+    // list endpoints. One primary-key lookup instead of hashing the response.
+    @Transactional(readOnly = true)
+    public String getCatalogVersion() {
+        return Long.toString(catalogVersion.current());
+    }
+
+    // Books written and ids deleted after the given instant
+    @Transactional(readOnly = true)
+    public BookChanges getChangesSince(Instant since) {
+        long nextSince = changesCursor();
+        List<Book> upserts = bookRepository.findModifiedAfter(since);
+        List<Long> deletions = tombstoneRepository.findDeletedAfter(since);
+        return new BookChanges(upserts, deletions, nextSince);
+    }
+
+    // A /changes cursor that covers every write not visible to reads made from now on
+    public long changesCursor() {
+        return Instant.now().minus(CHANGE_FEED_OVERLAP).toEpochMilli();
     }
 
     // Search books by title or author - Bonus feature
+    // Answered from the in-memory index instead of a LIKE scan
+    @Transactional(readOnly = true)
     public List<Book> searchBooks(String searchTerm) {
-        return bookRepository.searchBooks(searchTerm);
+        List<Book> books = searchIndex.search(searchTerm);
+        searchResultSizes.record(books.size());
+        return books;
+    }
+
+    // Ranked, typo-tolerant search: the `limit` most relevant books, best first
+    @Transactional(readOnly = true)
+    public List<Book> searchBooksRanked(String query, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        List<Book> books = searchIndex.searchRanked(query, limit);
+        searchResultSizes.record(books.size());
+        return books;
     }
 
     // Get books with pagination - Bonus feature
+    @Transactional(readOnly = true)
     public Page<Book> getBooksWithPagination(Pageable pageable) {
         return bookRepository.findAll(pageable);
     }
 
     // Search books with pagination - Bonus feature
+    @Transactional(readOnly = true)
     public Page<Book> searchBooksWithPagination(String searchTerm, Pageable pageable) {
-        return bookRepository.searchBooksWithPagination(searchTerm, pageable);
+        if (pageable.getSort().isSorted()) {
+            // The index only yields id order
+            return bookRepository.searchBooksWithPagination(searchTerm, pageable);
+        }
+        return searchIndex.search(searchTerm, pageable);
+    }
+
+    // Browse facets from the index's counters; yearBucket is "year" or "decade"
+    @Transactional(readOnly = true)
+    public BookFacets getFacets(String searchTerm, int limit, String yearBucket) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        boolean byDecade = switch (yearBucket) {
+            case "year" -> false;
+            case "decade" -> true;
+            default -> throw new IllegalArgumentException("Unsupported yearBucket: " + yearBucket);
+        };
+        return new BookFacets(searchIndex.authorFacets(searchTerm, limit),
+                searchIndex.yearFacets(searchTerm, byDecade, limit));
+    }
+
+    // Scroll through books with keyset pagination, ordered by (sortBy, id)
+    @Transactional(readOnly = true)
+    public BookSlice scrollBooks(String sortBy, String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        BookCursor position = (cursor == null || cursor.isEmpty()) ? null : BookCursor.decode(cursor);
+        if (position != null && !position.getSortBy().equals(sortBy)) {
+            throw new IllegalArgumentException("Cursor was issued for sortBy=" + position.getSortBy());
+        }
+
+        // Fetch one extra row to find out whether another window follows
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Book> books = switch (sortBy) {
+            case "id" -> position == null
+                    ? bookRepository.scrollById(limit)
+                    : bookRepository.scrollByIdAfter(position.getId(), limit);
+            case "title" -> position == null
+                    ? bookRepository.scrollByTitle(limit)
+                    : bookRepository.scrollByTitleAfter(position.getKey(), position.getId(), limit);
+            case "author" -> position == null
+                    ? bookRepository.scrollByAuthor(limit)
+                    : bookRepository.scrollByAuthorAfter(position.getKey(), position.getId(), limit);
+            case "isbn" -> position == null
+                    ? bookRepository.scrollByIsbn(limit)
+                    : bookRepository.scrollByIsbnAfter(position.getKey(), limit);
+            default -> throw new IllegalArgumentException("Unsupported sortBy: " + sortBy);
+        };
+
+        boolean hasNext = books.size() > size;
+        if (hasNext) {
+            books = new ArrayList<>(books.subList(0, size));
+        }
+        String nextCursor = hasNext ? BookCursor.after(sortBy, books.get(size - 1)).encode() : null;
+        return new BookSlice(books, hasNext, nextCursor);
     }
-}
\ No newline at end of file
+}
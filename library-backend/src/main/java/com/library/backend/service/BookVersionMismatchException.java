@@ -0,0 +1,17 @@
+package com.library.backend.service;
+
+// A conditional write (If-Match) expected a version of the book that is no longer current
+public class BookVersionMismatchException extends RuntimeException {
+
+    private final Long currentVersion;
+
+    public BookVersionMismatchException(Long id, long expectedVersion, Long currentVersion) {
+        super("Book " + id + " is not at version " + expectedVersion);
+        this.currentVersion = currentVersion;
+    }
+
+    // Null if the version that won is not known (it changed while this write was in flight)
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
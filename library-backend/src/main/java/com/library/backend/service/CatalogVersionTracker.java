@@ -0,0 +1,45 @@
+package com.library.backend.service;
+
+import com.library.backend.event.BookChangeEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Counts committed catalog writes in the catalog_version row. Every transaction that publishes
+// a BookChangeEvent bumps the counter once, just before it commits, so the new value becomes
+// visible together with the write. The row lock is held only from then until the commit.
+@Component
+public class CatalogVersionTracker {
+
+    // Bound to a transaction once it has bumped the counter
+    private static final Object BUMPED = CatalogVersionTracker.class.getName() + ".bumped";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBookChange(BookChangeEvent event) {
+        if (TransactionSynchronizationManager.hasResource(BUMPED)) {
+            return;
+        }
+        entityManager.createNativeQuery("UPDATE catalog_version SET version = version + 1 WHERE id = 1")
+                .executeUpdate();
+        TransactionSynchronizationManager.bindResource(BUMPED, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(BUMPED);
+            }
+        });
+    }
+
+    // Call inside a transaction
+    public long current() {
+        return ((Number) entityManager.createNativeQuery("SELECT version FROM catalog_version WHERE id = 1")
+                .getSingleResult()).longValue();
+    }
+}
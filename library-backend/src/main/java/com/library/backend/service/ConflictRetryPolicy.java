@@ -0,0 +1,87 @@
+package com.library.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Runs a read-modify-write in its own transaction and, when a concurrent writer got there
+// first (optimistic lock failure on the @Version check, or a lock timeout), runs it again
+// against fresh data. Waits a random, doubling delay between attempts so writers contending
+// for the same hot row spread out instead of colliding again in lockstep.
+@Component
+public class ConflictRetryPolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(ConflictRetryPolicy.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffNanos;
+    private final Counter retries;
+
+    @Autowired
+    public ConflictRetryPolicy(PlatformTransactionManager transactionManager,
+                               @Value("${library.write.max-attempts:5}") int maxAttempts,
+                               @Value("${library.write.retry-backoff:5ms}") Duration backoff,
+                               MeterRegistry meterRegistry) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("library.write.max-attempts must be positive");
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A retry must not join the transaction that just failed
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = maxAttempts;
+        this.backoffNanos = backoff.toNanos();
+        this.retries = Counter.builder("library.book.write.retries")
+                .description("Writes run again after losing a race with a concurrent writer")
+                .register(meterRegistry);
+    }
+
+    // Run the work, retrying on conflicts; rethrows the last ConcurrencyFailureException
+    // once every attempt lost
+    public <T> T execute(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.debug("Write still conflicting after {} attempts", attempt);
+                    throw e;
+                }
+                retries.increment();
+                pause(attempt);
+            }
+        }
+    }
+
+    // Run the work once in its own transaction; for writes whose precondition a conflict breaks
+    public <T> T executeOnce(Supplier<T> work) {
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    // Full jitter: uniform in (0, backoff * 2^(attempt - 1)]
+    private void pause(int attempt) {
+        long bound = backoffNanos << Math.min(attempt - 1, 16);
+        if (bound <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(1 + ThreadLocalRandom.current().nextLong(bound));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrencyFailureException("Interrupted while waiting to retry a conflicting write", e);
+        }
+    }
+}
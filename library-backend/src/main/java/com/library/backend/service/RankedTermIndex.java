@@ -0,0 +1,406 @@
+package com.library.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+// Word-level BM25 index over title and author with typo-tolerant term lookup.
+// Each query word is expanded to the indexed words within a small edit distance (found through
+// a trigram index over the vocabulary), and a book scores the best variant per query word,
+// discounted by the number of edits. Not thread-safe: BookSearchIndex calls it under its lock.
+final class RankedTermIndex {
+
+    // BM25 term-frequency saturation and length normalization
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Score kept per edit, so exact matches outrank corrected ones
+    private static final double EDIT_PENALTY = 0.3;
+
+    private static final int GRAM_SIZE = 3;
+
+    private final FieldIndex title = new FieldIndex();
+    private final FieldIndex author = new FieldIndex();
+
+    // Word -> number of fields holding postings for it
+    private final Map<String, Integer> vocabulary = new HashMap<>();
+    // Trigram of a space-padded word -> vocabulary words containing it
+    private final Map<String, Set<String>> vocabularyGrams = new HashMap<>();
+    private int documents;
+
+    void add(long id, List<String> titleWords, List<String> authorWords) {
+        documents++;
+        title.add(id, titleWords);
+        author.add(id, authorWords);
+    }
+
+    void remove(long id, List<String> titleWords, List<String> authorWords) {
+        documents--;
+        title.remove(id, titleWords);
+        author.remove(id, authorWords);
+    }
+
+    void clear() {
+        title.terms.clear();
+        title.totalLength = 0;
+        author.terms.clear();
+        author.totalLength = 0;
+        vocabulary.clear();
+        vocabularyGrams.clear();
+        documents = 0;
+    }
+
+    // Ids of the `limit` highest-scoring books, best first (ties by id)
+    List<Long> search(List<String> queryWords, int limit) {
+        if (documents == 0 || queryWords.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Double> totals = new HashMap<>();
+        for (String word : new LinkedHashSet<>(queryWords)) {
+            // Best variant of this query word per book
+            Map<Long, Double> best = new HashMap<>();
+            for (Map.Entry<String, Integer> variant : variants(word).entrySet()) {
+                double similarity = 1.0 - EDIT_PENALTY * variant.getValue();
+                Map<Long, Double> scores = new HashMap<>();
+                title.score(variant.getKey(), similarity, scores);
+                author.score(variant.getKey(), similarity, scores);
+                scores.forEach((id, score) -> best.merge(id, score, Math::max));
+            }
+            best.forEach((id, score) -> totals.merge(id, score, Double::sum));
+        }
+
+        Comparator<Map.Entry<Long, Double>> order = Map.Entry.<Long, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(order.reversed());
+        for (Map.Entry<Long, Double> total : totals.entrySet()) {
+            heap.add(total);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(heap);
+        ranked.sort(order);
+        List<Long> ids = new ArrayList<>(ranked.size());
+        for (Map.Entry<Long, Double> entry : ranked) {
+            ids.add(entry.getKey());
+        }
+        return ids;
+    }
+
+    // Lower-cased text split into letter/digit runs
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    // Indexed words within the allowed edit distance of the query word -> edits
+    private Map<String, Integer> variants(String word) {
+        Map<String, Integer> variants = new HashMap<>();
+        if (vocabulary.containsKey(word)) {
+            variants.put(word, 0);
+        }
+        int maxEdits = word.length() <= 3 ? 0 : word.length() <= 6 ? 1 : 2;
+        if (maxEdits == 0) {
+            return variants;
+        }
+
+        // A substitution, insertion or deletion destroys at most GRAM_SIZE trigrams, but a
+        // transposition of two adjacent letters destroys GRAM_SIZE + 1, so a variant shares at
+        // least this many
+        Set<String> grams = paddedGrams(word);
+        int required = Math.max(1, grams.size() - (GRAM_SIZE + 1) * maxEdits);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            Set<String> words = vocabularyGrams.get(gram);
+            if (words != null) {
+                for (String candidate : words) {
+                    shared.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+            String text = candidate.getKey();
+            if (candidate.getValue() < required || Math.abs(text.length() - word.length()) > maxEdits
+                    || variants.containsKey(text)) {
+                continue;
+            }
+            int edits = editDistance(word, text, maxEdits);
+            if (edits <= maxEdits) {
+                variants.put(text, edits);
+            }
+        }
+        return variants;
+    }
+
+    // Optimal string alignment distance (adjacent transpositions count as one edit),
+    // or max + 1 as soon as it is known to exceed max
+    private static int editDistance(String a, String b, int max) {
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int distance = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    distance = Math.min(distance, previous2[j - 2] + 1);
+                }
+                current[j] = distance;
+                rowMin = Math.min(rowMin, distance);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private static Set<String> paddedGrams(String word) {
+        String padded = " " + word + " ";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private void retainWord(String word) {
+        if (vocabulary.merge(word, 1, Integer::sum) == 1) {
+            for (String gram : paddedGrams(word)) {
+                vocabularyGrams.computeIfAbsent(gram, g -> new HashSet<>()).add(word);
+            }
+        }
+    }
+
+    private void releaseWord(String word) {
+        Integer remaining = vocabulary.computeIfPresent(word, (w, count) -> count > 1 ? count - 1 : null);
+        if (remaining == null) {
+            for (String gram : paddedGrams(word)) {
+                Set<String> words = vocabularyGrams.get(gram);
+                if (words != null && words.remove(word) && words.isEmpty()) {
+                    vocabularyGrams.remove(gram);
+                }
+            }
+        }
+    }
+
+    // Postings and length statistics of one field
+    private final class FieldIndex {
+        private final Map<String, TermPostings> terms = new HashMap<>();
+        private long totalLength;
+
+        private void add(long id, List<String> words) {
+            totalLength += words.size();
+            for (Map.Entry<String, Integer> tf : termFrequencies(words).entrySet()) {
+                TermPostings postings = terms.get(tf.getKey());
+                if (postings == null) {
+                    postings = new TermPostings();
+                    terms.put(tf.getKey(), postings);
+                    retainWord(tf.getKey());
+                }
+                postings.add(id, tf.getValue(), words.size());
+            }
+        }
+
+        private void remove(long id, List<String> words) {
+            totalLength -= words.size();
+            for (String word : termFrequencies(words).keySet()) {
+                TermPostings postings = terms.get(word);
+                if (postings != null && postings.remove(id) && postings.size == 0) {
+                    terms.remove(word);
+                    releaseWord(word);
+                }
+            }
+        }
+
+        // Add this field's BM25 contribution for the word to each matching book's score
+        private void score(String word, double weight, Map<Long, Double> scores) {
+            TermPostings postings = terms.get(word);
+            if (postings == null) {
+                return;
+            }
+            double idf = Math.log(1 + (documents - postings.size + 0.5) / (postings.size + 0.5));
+            double averageLength = Math.max(1.0, (double) totalLength / documents);
+            postings.forEach((id, tf, length) -> {
+                double norm = K1 * (1 - B + B * length / averageLength);
+                scores.merge(id, weight * idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+            });
+        }
+
+        private Map<String, Integer> termFrequencies(List<String> words) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String word : words) {
+                frequencies.merge(word, 1, Integer::sum);
+            }
+            return frequencies;
+        }
+    }
+
+    @FunctionalInterface
+    private interface PostingConsumer {
+        void accept(long id, int frequency, int length);
+    }
+
+    // Books containing a word, with the word's frequency and the field length. Scoring visits
+    // them in any order, so a write never shifts the sorted arrays: a removal zeroes the
+    // frequency in place, and new ids go to a small sorted tail. The tail and the zeroed slots
+    // are merged away once they outgrow about the square root of the arrays, so a write costs
+    // O(sqrt n) amortized. New books have the highest ids and are appended directly.
+    private static final class TermPostings {
+        private static final int MIN_TAIL = 32;
+
+        private long[] ids = new long[2];
+        private int[] frequencies = new int[2];
+        private int[] lengths = new int[2];
+        private int baseSize;
+        // Slots of the arrays whose frequency is 0
+        private int removed;
+        private long[] tailIds = new long[2];
+        private int[] tailFrequencies = new int[2];
+        private int[] tailLengths = new int[2];
+        private int tailSize;
+        private int size;
+
+        private void add(long id, int frequency, int length) {
+            if (tailSize == 0 && (baseSize == 0 || ids[baseSize - 1] < id)) {
+                if (baseSize == ids.length) {
+                    ids = Arrays.copyOf(ids, baseSize * 2);
+                    frequencies = Arrays.copyOf(frequencies, baseSize * 2);
+                    lengths = Arrays.copyOf(lengths, baseSize * 2);
+                }
+                ids[baseSize] = id;
+                frequencies[baseSize] = frequency;
+                lengths[baseSize] = length;
+                baseSize++;
+                size++;
+                return;
+            }
+            int pos = Arrays.binarySearch(ids, 0, baseSize, id);
+            if (pos >= 0) {
+                if (frequencies[pos] == 0) {
+                    removed--;
+                    size++;
+                }
+                frequencies[pos] = frequency;
+                lengths[pos] = length;
+                return;
+            }
+            pos = Arrays.binarySearch(tailIds, 0, tailSize, id);
+            if (pos >= 0) {
+                tailFrequencies[pos] = frequency;
+                tailLengths[pos] = length;
+                return;
+            }
+            pos = -pos - 1;
+            if (tailSize == tailIds.length) {
+                tailIds = Arrays.copyOf(tailIds, tailSize * 2);
+                tailFrequencies = Arrays.copyOf(tailFrequencies, tailSize * 2);
+                tailLengths = Arrays.copyOf(tailLengths, tailSize * 2);
+            }
+            System.arraycopy(tailIds, pos, tailIds, pos + 1, tailSize - pos);
+            System.arraycopy(tailFrequencies, pos, tailFrequencies, pos + 1, tailSize - pos);
+            System.arraycopy(tailLengths, pos, tailLengths, pos + 1, tailSize - pos);
+            tailIds[pos] = id;
+            tailFrequencies[pos] = frequency;
+            tailLengths[pos] = length;
+            tailSize++;
+            size++;
+            mergeIfFull();
+        }
+
+        private boolean remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, baseSize, id);
+            if (pos >= 0) {
+                if (frequencies[pos] == 0) {
+                    return false;
+                }
+                frequencies[pos] = 0;
+                removed++;
+                size--;
+                mergeIfFull();
+                return true;
+            }
+            pos = Arrays.binarySearch(tailIds, 0, tailSize, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(tailIds, pos + 1, tailIds, pos, tailSize - pos - 1);
+            System.arraycopy(tailFrequencies, pos + 1, tailFrequencies, pos, tailSize - pos - 1);
+            System.arraycopy(tailLengths, pos + 1, tailLengths, pos, tailSize - pos - 1);
+            tailSize--;
+            size--;
+            return true;
+        }
+
+        private void forEach(PostingConsumer consumer) {
+            for (int i = 0; i < baseSize; i++) {
+                if (frequencies[i] != 0) {
+                    consumer.accept(ids[i], frequencies[i], lengths[i]);
+                }
+            }
+            for (int i = 0; i < tailSize; i++) {
+                consumer.accept(tailIds[i], tailFrequencies[i], tailLengths[i]);
+            }
+        }
+
+        private void mergeIfFull() {
+            if (tailSize + removed <= Math.max(MIN_TAIL, (int) Math.sqrt(baseSize))) {
+                return;
+            }
+            int capacity = Math.max(2, size + size / 8);
+            long[] mergedIds = new long[capacity];
+            int[] mergedFrequencies = new int[capacity];
+            int[] mergedLengths = new int[capacity];
+            int count = 0;
+            int tail = 0;
+            for (int i = 0; i <= baseSize; i++) {
+                while (tail < tailSize && (i == baseSize || tailIds[tail] < ids[i])) {
+                    mergedIds[count] = tailIds[tail];
+                    mergedFrequencies[count] = tailFrequencies[tail];
+                    mergedLengths[count] = tailLengths[tail];
+                    count++;
+                    tail++;
+                }
+                if (i < baseSize && frequencies[i] != 0) {
+                    mergedIds[count] = ids[i];
+                    mergedFrequencies[count] = frequencies[i];
+                    mergedLengths[count] = lengths[i];
+                    count++;
+                }
+            }
+            ids = mergedIds;
+            frequencies = mergedFrequencies;
+            lengths = mergedLengths;
+            baseSize = count;
+            removed = 0;
+            tailSize = 0;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+-- Pooled id sequence; INCREMENT BY must match allocationSize on Book.id
+CREATE SEQUENCE book_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE books (
+    id             BIGINT       NOT NULL,
+    title          VARCHAR(255) NOT NULL,
+    author         VARCHAR(255) NOT NULL,
+    isbn           VARCHAR(255) NOT NULL,
+    published_date DATE,
+    CONSTRAINT pk_books PRIMARY KEY (id),
+    CONSTRAINT uk_books_isbn UNIQUE (isbn)
+);
+
+-- (sortKey, id) seek predicates for keyset pagination; also serve author lookups
+CREATE INDEX idx_books_title_id ON books (title, id);
+CREATE INDEX idx_books_author_id ON books (author, id);
+CREATE INDEX idx_books_published_date ON books (published_date);
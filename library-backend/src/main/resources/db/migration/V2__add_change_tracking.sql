@@ -0,0 +1,14 @@
+-- Optimistic-lock version and write timestamp; last_modified drives the change feed and catalog ETags
+ALTER TABLE books ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE books ADD COLUMN last_modified TIMESTAMP(6) WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL;
+
+CREATE INDEX idx_books_last_modified ON books (last_modified);
+
+-- One row per deleted book, so the change feed can report deletions
+CREATE TABLE book_tombstones (
+    book_id    BIGINT                      NOT NULL,
+    deleted_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_book_tombstones PRIMARY KEY (book_id)
+);
+
+CREATE INDEX idx_book_tombstones_deleted_at ON book_tombstones (deleted_at);
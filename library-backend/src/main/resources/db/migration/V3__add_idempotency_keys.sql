@@ -0,0 +1,12 @@
+-- Outcome of each batch operation sent with an idempotency key, so a retried batch
+-- reports the original result instead of applying the operation twice
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(255)                NOT NULL,
+    operation       VARCHAR(10)                 NOT NULL,
+    outcome         VARCHAR(20)                 NOT NULL,
+    book_id         BIGINT,
+    created_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_idempotency_keys PRIMARY KEY (idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys (created_at);
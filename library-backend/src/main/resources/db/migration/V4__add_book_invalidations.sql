@@ -0,0 +1,14 @@
+-- Outbox of book changes for the other nodes of a cluster: each write inserts a row in its own
+-- transaction, and every node polls for rows written by the others to refresh its caches
+-- INCREMENT BY must match allocationSize on BookInvalidation.id
+CREATE SEQUENCE book_invalidation_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE book_invalidations (
+    id          BIGINT                      NOT NULL,
+    book_id     BIGINT                      NOT NULL,
+    origin_node VARCHAR(64)                 NOT NULL,
+    created_at  TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_book_invalidations PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_book_invalidations_created_at ON book_invalidations (created_at);
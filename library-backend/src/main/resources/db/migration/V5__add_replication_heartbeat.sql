@@ -0,0 +1,10 @@
+-- Written on the primary every lag check and read back from each read replica, to measure how
+-- far the replica is behind. Starts at the epoch, so a new replica is not mistaken for a
+-- caught-up one before its first heartbeat arrives.
+CREATE TABLE replication_heartbeat (
+    id      INT                         NOT NULL,
+    beat_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_replication_heartbeat PRIMARY KEY (id)
+);
+
+INSERT INTO replication_heartbeat (id, beat_at) VALUES (1, TIMESTAMP WITH TIME ZONE '1970-01-01 00:00:00+00');
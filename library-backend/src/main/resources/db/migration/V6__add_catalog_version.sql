@@ -0,0 +1,10 @@
+-- Counter bumped by every transaction that writes books (CatalogVersionTracker), in that
+-- transaction; the list endpoints' ETag. Unlike MAX(last_modified) it also changes when a write
+-- stamped earlier commits after a later one.
+CREATE TABLE catalog_version (
+    id      INT    NOT NULL,
+    version BIGINT NOT NULL,
+    CONSTRAINT pk_catalog_version PRIMARY KEY (id)
+);
+
+INSERT INTO catalog_version (id, version) VALUES (1, 0);
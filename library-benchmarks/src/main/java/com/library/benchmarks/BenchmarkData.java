@@ -0,0 +1,103 @@
+package com.library.benchmarks;
+
+import com.library.LibraryManagementApplication;
+import com.library.backend.model.Book;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic catalog data and a headless backend for the benchmarks
+final class BenchmarkData {
+
+    private static final String[] WORDS = {
+            "silent", "river", "garden", "stone", "shadow", "winter", "empire", "glass",
+            "forgotten", "city", "night", "ocean", "iron", "crown", "letters", "house",
+            "golden", "road", "last", "summer", "hidden", "fire", "northern", "light",
+            "broken", "mirror", "wild", "harbor", "paper", "moon", "secret", "island"
+    };
+    private static final String[] FIRST_NAMES = {
+            "Alice", "Bernard", "Clara", "Dmitri", "Elena", "Farid", "Grace", "Hiroshi",
+            "Ingrid", "Jonas", "Kamala", "Liam", "Marta", "Nikolai", "Olivia", "Pavel",
+            "Quinn", "Rosa", "Samuel", "Tove"
+    };
+    private static final String[] LAST_NAMES = {
+            "Abbott", "Brennan", "Castillo", "Dubois", "Eriksen", "Fontaine", "Gallagher", "Haddad",
+            "Ivanova", "Jensen", "Kowalski", "Lindqvist", "Moreau", "Nakamura", "Okafor", "Petrova",
+            "Quintero", "Rasmussen", "Sato", "Whitfield"
+    };
+
+    private BenchmarkData() {
+    }
+
+    // The n-th book of the deterministic catalog (ISBNs are unique per n)
+    static Book book(long n) {
+        Random random = new Random(n * 31 + 7);
+        String title = capitalize(word(random)) + " " + word(random) + " " + word(random);
+        String author = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        String isbn = String.format("978-%010d", n);
+        LocalDate publishedDate = LocalDate.of(1900 + random.nextInt(124), 1 + random.nextInt(12), 1 + random.nextInt(28));
+        return new Book(title, author, isbn, publishedDate);
+    }
+
+    // Books [from, from + count) of the catalog, generated lazily
+    static Iterator<Book> books(long from, long count) {
+        return new Iterator<>() {
+            private long next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < from + count;
+            }
+
+            @Override
+            public Book next() {
+                return book(next++);
+            }
+        };
+    }
+
+    // Books with ids assigned, as the backend would return them
+    static List<Book> bookList(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Book book = book(i);
+            book.setId((long) i + 1);
+            books.add(book);
+        }
+        return books;
+    }
+
+    // Start the backend without a web server against its own in-memory database
+    static ConfigurableApplicationContext startBackend(String databaseName) {
+        return startBackendWith("--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1");
+    }
+
+    // Start the backend without a web server; args are Spring Boot command-line properties
+    static ConfigurableApplicationContext startBackendWith(String... args) {
+        String[] allArgs = Arrays.copyOf(args, args.length + 4);
+        allArgs[args.length] = "--spring.jpa.show-sql=false";
+        allArgs[args.length + 1] = "--spring.h2.console.enabled=false";
+        allArgs[args.length + 2] = "--logging.level.root=WARN";
+        allArgs[args.length + 3] = "--logging.level.com.library.backend=WARN";
+        return new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(allArgs);
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,139 @@
+package com.library.benchmarks;
+
+import com.library.backend.model.Book;
+import com.library.backend.repository.BookRepository;
+import com.library.backend.service.BookService;
+import com.library.backend.service.BookVersionMismatchException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Concurrent updates to a few hot rows under optimistic locking; reports updates/s.
+// lastWriterWins: unconditional updates, retried by the service when they race.
+// readModifyWrite: clients read a book, increment the counter in its title and write it back
+// with If-Match semantics, re-reading after each 412.
+// The trial fails if an update was lost: every applied update must have bumped its row's
+// version exactly once, and the title counters must add up to the applied increments.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BookContentionBenchmark {
+
+    private static final String COUNTER_PREFIX = "Hot ";
+
+    @Param({"1", "16", "1024"})
+    public int hotRows;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookRepository bookRepository;
+    private Book[] seeded;
+
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder increments = new LongAdder();
+    private final LongAdder preconditionFailures = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    // Every write changes the author, so no update is skipped as a no-op by dirty checking
+    private final AtomicLong writes = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkData.startBackend("contention");
+        bookService = context.getBean(BookService.class);
+        bookRepository = context.getBean(BookRepository.class);
+
+        seeded = new Book[hotRows];
+        for (int i = 0; i < hotRows; i++) {
+            Book book = BenchmarkData.book(i);
+            book.setTitle(COUNTER_PREFIX + 0);
+            seeded[i] = bookService.createBook(book);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        List<Long> ids = new ArrayList<>(hotRows);
+        for (Book book : seeded) {
+            ids.add(book.getId());
+        }
+        long versions = 0;
+        long counted = 0;
+        for (Book book : bookRepository.findAllById(ids)) {
+            versions += book.getVersion();
+            counted += counter(book);
+        }
+        context.close();
+
+        System.out.printf("%nhotRows=%d: %,d updates applied, %,d precondition failures (412), %,d gave up (409)%n",
+                hotRows, applied.sum(), preconditionFailures.sum(), conflicts.sum());
+        if (versions != applied.sum()) {
+            throw new IllegalStateException(applied.sum() + " updates applied but versions advanced by " + versions);
+        }
+        if (counted != increments.sum()) {
+            throw new IllegalStateException(increments.sum() + " increments applied but counters add up to " + counted);
+        }
+    }
+
+    @Benchmark
+    public Book lastWriterWins() {
+        Book book = seeded[ThreadLocalRandom.current().nextInt(hotRows)];
+        Book details = new Book(book);
+        details.setAuthor("Writer " + writes.incrementAndGet());
+        try {
+            Book saved = bookService.updateBook(book.getId(), details);
+            applied.increment();
+            return saved;
+        } catch (ConcurrencyFailureException e) {
+            conflicts.increment();
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Book readModifyWrite() {
+        Long id = seeded[ThreadLocalRandom.current().nextInt(hotRows)].getId();
+        while (true) {
+            // Served from the books cache, like GET /api/books/{id}
+            Book current = bookService.getBookById(id).orElseThrow();
+            Book next = new Book(current);
+            next.setTitle(COUNTER_PREFIX + (counter(current) + 1));
+            next.setAuthor("Writer " + writes.incrementAndGet());
+            try {
+                Book saved = bookService.updateBook(id, next, current.getVersion());
+                applied.increment();
+                increments.increment();
+                return saved;
+            } catch (BookVersionMismatchException e) {
+                preconditionFailures.increment();
+            }
+        }
+    }
+
+    private static long counter(Book book) {
+        return Long.parseLong(book.getTitle().substring(COUNTER_PREFIX.length()));
+    }
+}
@@ -0,0 +1,94 @@
+package com.library.benchmarks;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.library.frontend.model.Book;
+import com.library.frontend.service.BookApiService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Decoding a catalog response and rendering its rows the way the table's cell value factories
+// do: each row that enters the viewport has its five column properties read. Properties are
+// created lazily per row, so the cost lands on rows that are actually shown.
+// firstScreen: decode the whole response and bind one screen of rows (time to first paint).
+// scrollThrough: bind every row of a freshly decoded list once, as scrolling to the end would.
+// Run with -prof gc to see bytes allocated per operation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BookRowBenchmark {
+
+    private static final Type BOOK_LIST = new TypeToken<List<Book>>(){}.getType();
+    // Rows in view at the frontend's default window size
+    private static final int VISIBLE_ROWS = 25;
+
+    @Param({"100000"})
+    private int rows;
+
+    private Gson gson;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        gson = BookApiService.createGson();
+        json = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build()
+                .writeValueAsString(BenchmarkData.bookList(rows));
+    }
+
+    // Decoded before each scrollThrough call, so every row starts without properties
+    @State(Scope.Thread)
+    public static class DecodedRows {
+        List<Book> books;
+
+        @Setup(Level.Invocation)
+        public void decode(BookRowBenchmark benchmark) {
+            books = benchmark.gson.fromJson(benchmark.json, BOOK_LIST);
+        }
+    }
+
+    @Benchmark
+    public void firstScreen(Blackhole blackhole) {
+        List<Book> books = gson.fromJson(json, BOOK_LIST);
+        for (int i = 0; i < VISIBLE_ROWS; i++) {
+            bind(books.get(i), blackhole);
+        }
+    }
+
+    @Benchmark
+    public void scrollThrough(DecodedRows decoded, Blackhole blackhole) {
+        for (Book book : decoded.books) {
+            bind(book, blackhole);
+        }
+    }
+
+    // What LibraryView's cell value factories hand to the five cells of a row
+    private static void bind(Book book, Blackhole blackhole) {
+        blackhole.consume(book.idProperty().getValue());
+        blackhole.consume(book.titleProperty().getValue());
+        blackhole.consume(book.authorProperty().getValue());
+        blackhole.consume(book.isbnProperty().getValue());
+        blackhole.consume(book.publishedDateProperty().getValue());
+    }
+}
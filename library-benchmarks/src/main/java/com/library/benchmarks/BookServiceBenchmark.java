@@ -0,0 +1,118 @@
+package com.library.benchmarks;
+
+import com.library.backend.dto.BookCursor;
+import com.library.backend.dto.BookSlice;
+import com.library.backend.model.Book;
+import com.library.backend.repository.BookRepository;
+import com.library.backend.service.BookImportService;
+import com.library.backend.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Read paths of BookService against catalogs of increasing size
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BookServiceBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    // A surname (~0.25% of rows) and a title word (~9% of rows)
+    @Param({"whitfield", "stone"})
+    private String searchTerm;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookRepository bookRepository;
+    private int deepPage;
+    private String deepCursor;
+    // searchTerm with its 2nd and 3rd letters swapped, e.g. "wihtfield"
+    private String misspelledTerm;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkData.startBackend("service" + rows);
+        bookService = context.getBean(BookService.class);
+        bookRepository = context.getBean(BookRepository.class);
+        context.getBean(BookImportService.class).importBooks(BenchmarkData.books(0, rows), 5000);
+
+        // Halfway through the catalog, reached by OFFSET and by cursor
+        deepPage = rows / PAGE_SIZE / 2;
+        Book middle = bookRepository.findAll(PageRequest.of(rows / 2, 1, Sort.by("id"))).getContent().get(0);
+        deepCursor = BookCursor.after("id", middle).encode();
+
+        misspelledTerm = searchTerm.charAt(0) + "" + searchTerm.charAt(2) + searchTerm.charAt(1)
+                + searchTerm.substring(3);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Book> searchIndexed() {
+        return bookService.searchBooks(searchTerm);
+    }
+
+    // The LIKE query the search index replaced
+    @Benchmark
+    public List<Book> searchLike() {
+        return bookRepository.searchBooks(searchTerm);
+    }
+
+    // Top 20 by BM25; compare with searchLike, which returns nothing for a typo
+    @Benchmark
+    public List<Book> searchRanked() {
+        return bookService.searchBooksRanked(searchTerm, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Book> searchRankedMisspelled() {
+        return bookService.searchBooksRanked(misspelledTerm, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Page<Book> searchPaginated() {
+        return bookService.searchBooksWithPagination(searchTerm, PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Page<Book> paginatedFirstPage() {
+        return bookService.getBooksWithPagination(PageRequest.of(0, PAGE_SIZE, Sort.by("id")));
+    }
+
+    @Benchmark
+    public Page<Book> paginatedDeepPage() {
+        return bookService.getBooksWithPagination(PageRequest.of(deepPage, PAGE_SIZE, Sort.by("id")));
+    }
+
+    @Benchmark
+    public BookSlice scrollDeep() {
+        return bookService.scrollBooks("id", deepCursor, PAGE_SIZE);
+    }
+}
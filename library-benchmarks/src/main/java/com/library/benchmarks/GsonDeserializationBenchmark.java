@@ -0,0 +1,72 @@
+package com.library.benchmarks;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.reflect.TypeToken;
+import com.library.frontend.model.Book;
+import com.library.frontend.service.BookApiService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Frontend decoding of a /api/books response with the Gson setup BookApiService uses.
+// deserializeListReflective is the earlier setup for comparison: reflective field binding and a
+// JsonElement-based LocalDate deserializer. Run with -prof gc for allocation per list.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GsonDeserializationBenchmark {
+
+    private static final Type BOOK_LIST = new TypeToken<List<Book>>(){}.getType();
+
+    @Param({"20", "1000", "100000"})
+    private int size;
+
+    private Gson gson;
+    private Gson reflectiveGson;
+    private String json;
+
+    @Setup
+    public void setUp() throws Exception {
+        gson = BookApiService.createGson();
+        reflectiveGson = new GsonBuilder()
+                .registerTypeAdapter(LocalDate.class,
+                        (JsonDeserializer<LocalDate>) (element, type, context) -> LocalDate.parse(element.getAsString()))
+                .excludeFieldsWithoutExposeAnnotation()
+                .create();
+        // The exact bytes the backend would send
+        json = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build()
+                .writeValueAsString(BenchmarkData.bookList(size));
+    }
+
+    @Benchmark
+    public List<Book> deserializeList() {
+        return gson.fromJson(json, BOOK_LIST);
+    }
+
+    @Benchmark
+    public List<Book> deserializeListReflective() {
+        return reflectiveGson.fromJson(json, BOOK_LIST);
+    }
+}
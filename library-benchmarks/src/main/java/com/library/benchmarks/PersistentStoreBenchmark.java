@@ -0,0 +1,116 @@
+package com.library.benchmarks;
+
+import com.library.backend.dto.BookImportResult;
+import com.library.backend.model.Book;
+import com.library.backend.service.BookImportService;
+import com.library.backend.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// The "persistent" profile: warm restart against an existing file database, and write throughput into it
+public class PersistentStoreBenchmark {
+
+    // A file database pre-loaded with the catalog, shared by every invocation of a trial
+    @State(Scope.Benchmark)
+    public static class Catalog {
+
+        @Param({"100000", "1000000"})
+        int rows;
+
+        Path dataDir;
+
+        @Setup(Level.Trial)
+        public void load() throws IOException {
+            dataDir = Files.createTempDirectory("library-bench");
+            try (ConfigurableApplicationContext context = start(dataDir)) {
+                context.getBean(BookImportService.class).importBooks(BenchmarkData.books(0, rows), 5000);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            try (Stream<Path> files = Files.walk(dataDir)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    // A running backend on the pre-loaded database
+    @State(Scope.Benchmark)
+    public static class Running {
+
+        ConfigurableApplicationContext context;
+        BookImportService bookImportService;
+        long next;
+
+        @Setup(Level.Trial)
+        public void start(Catalog catalog) {
+            context = PersistentStoreBenchmark.start(catalog.dataDir);
+            bookImportService = context.getBean(BookImportService.class);
+            next = catalog.rows;
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+    }
+
+    // Restart on the existing data (Flyway check, search index rebuild) and answer one lookup and one search
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+    public List<Book> restartToFirstRequest(Catalog catalog) {
+        try (ConfigurableApplicationContext context = start(catalog.dataDir)) {
+            BookService bookService = context.getBean(BookService.class);
+            bookService.getBookById(1L);
+            return bookService.searchBooks("whitfield");
+        }
+    }
+
+    // Books/s through the bulk import into the file database
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 5, time = 5)
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+    @OperationsPerInvocation(1000)
+    public BookImportResult bulkImport(Running running) {
+        BookImportResult result = running.bookImportService.importBooks(BenchmarkData.books(running.next, 1000), 1000);
+        running.next += 1000;
+        return result;
+    }
+
+    private static ConfigurableApplicationContext start(Path dataDir) {
+        return BenchmarkData.startBackendWith(
+                "--spring.profiles.active=persistent",
+                "--library.data-dir=" + dataDir.toAbsolutePath());
+    }
+}
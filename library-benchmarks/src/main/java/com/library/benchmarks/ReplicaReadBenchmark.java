@@ -0,0 +1,122 @@
+package com.library.benchmarks;
+
+import com.library.backend.datasource.ReadReplicaRoutingDataSource;
+import com.library.backend.dto.BookSlice;
+import com.library.backend.model.Book;
+import com.library.backend.service.BookImportService;
+import com.library.backend.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Read-only BookService calls from 16 threads against the primary alone (replicas=0) and with
+// 1, 2 or 4 H2 replicas kept in sync by LocalReplicator; reports reads/s. Every database here
+// runs in this JVM, so the scaling measured is a lower bound for replicas on their own hosts.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ReplicaReadBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int PAGE_SIZE = 20;
+    private static final long CATCH_UP_TIMEOUT_MS = 60_000;
+
+    @Param({"0", "1", "2", "4"})
+    public int replicas;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.datasource.url=jdbc:h2:mem:replicaread" + replicas + ";DB_CLOSE_DELAY=-1");
+        if (replicas > 0) {
+            List<String> urls = new ArrayList<>();
+            for (int i = 1; i <= replicas; i++) {
+                urls.add("jdbc:h2:mem:replicaread" + replicas + "r" + i + ";DB_CLOSE_DELAY=-1");
+            }
+            args.add("--library.replicas.urls=" + String.join(",", urls));
+            args.add("--library.replicas.local-replication=true");
+        }
+        context = BenchmarkData.startBackendWith(args.toArray(new String[0]));
+        bookService = context.getBean(BookService.class);
+        context.getBean(BookImportService.class).importBooks(BenchmarkData.books(0, ROWS), 5000);
+
+        if (replicas > 0) {
+            // Measure only once every replica has the catalog and serves reads
+            ReadReplicaRoutingDataSource routing = context.getBean(ReadReplicaRoutingDataSource.class);
+            long deadline = System.currentTimeMillis() + CATCH_UP_TIMEOUT_MS;
+            while (!caughtUp(routing)) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("Replicas did not catch up within " + CATCH_UP_TIMEOUT_MS + " ms");
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // A random OFFSET page by title, with its count query
+    @Benchmark
+    public Page<Book> randomPage() {
+        int page = ThreadLocalRandom.current().nextInt(ROWS / PAGE_SIZE);
+        return bookService.getBooksWithPagination(PageRequest.of(page, PAGE_SIZE, Sort.by("title")));
+    }
+
+    // The first window of a keyset scroll, as the frontend's table loads it
+    @Benchmark
+    public BookSlice firstWindow() {
+        return bookService.scrollBooks("title", null, PAGE_SIZE);
+    }
+
+    private static boolean caughtUp(ReadReplicaRoutingDataSource routing) {
+        if (routing.usableReplicas() < routing.getReplicas().size()) {
+            return false;
+        }
+        for (ReadReplicaRoutingDataSource.Replica replica : routing.getReplicas()) {
+            try (Connection connection = replica.getDataSource().getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet count = statement.executeQuery("SELECT COUNT(*) FROM books")) {
+                if (!count.next() || count.getLong(1) < ROWS) {
+                    return false;
+                }
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
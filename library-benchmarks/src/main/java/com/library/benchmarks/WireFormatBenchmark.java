@@ -0,0 +1,83 @@
+package com.library.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.library.backend.config.CborConfig;
+import com.library.backend.model.Book;
+import com.library.frontend.service.BookApiService;
+import com.library.frontend.util.BookCborDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JSON vs CBOR for a /api/books list: backend encoding, frontend decoding, and payload size
+// (printed once per trial, e.g. "json: 9,512,345 bytes for 100000 books")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private static final Type BOOK_LIST = new TypeToken<List<com.library.frontend.model.Book>>(){}.getType();
+
+    @Param({"json", "cbor"})
+    private String format;
+
+    @Param({"100000"})
+    private int size;
+
+    private ObjectMapper mapper;
+    private Gson gson;
+    private BookCborDecoder cborDecoder;
+    private List<Book> books;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        // The same mappers the backend serves each format with
+        mapper = "cbor".equals(format)
+                ? CborConfig.cborMapper(Jackson2ObjectMapperBuilder.json())
+                : Jackson2ObjectMapperBuilder.json()
+                        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                        .build();
+        gson = BookApiService.createGson();
+        cborDecoder = new BookCborDecoder();
+        books = BenchmarkData.bookList(size);
+        payload = mapper.writeValueAsBytes(books);
+        System.out.printf("%n%s: %,d bytes for %d books%n", format, payload.length, size);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return mapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public List<com.library.frontend.model.Book> decode() throws IOException {
+        if ("cbor".equals(format)) {
+            return cborDecoder.readBooks(new ByteArrayInputStream(payload));
+        }
+        return gson.fromJson(new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8), BOOK_LIST);
+    }
+}
@@ -8,11 +8,14 @@ import javafx.stage.Stage;
 
 public class LibraryManagementApp extends Application {
 
+    private LibraryView view;
+
     @Override
     public void start(Stage primaryStage) {
         try {
             // Load FXML (if using Scene Builder) or use programmatic UI
-            Parent root = new LibraryView();
+            view = new LibraryView();
+            Parent root = view;
 
             Scene scene = new Scene(root, 1000, 600);
 
@@ -25,6 +28,14 @@ public class LibraryManagementApp extends Application {
         }
     }
 
+    @Override
+    public void stop() {
+        // Flush and close the local catalog replica
+        if (view != null) {
+            view.shutdown();
+        }
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
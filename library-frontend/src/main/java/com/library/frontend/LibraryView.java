@@ -1,24 +1,51 @@
 package com.library.frontend;
 
+import com.library.frontend.data.LazyBookList;
+import com.library.frontend.data.LocalCatalogStore;
+import com.library.frontend.data.SearchResultCache;
 import com.library.frontend.model.Book;
+import com.library.frontend.model.BookOperation;
 import com.library.frontend.service.BookApiService;
+import com.library.frontend.service.CatalogSync;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
+import javafx.util.Duration;
 
+import java.nio.file.Path;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class LibraryView extends BorderPane {
 
+    // The catalog is paged in on demand from the local replica; only search results are held
+    // as a plain list
+    private static final int CATALOG_PAGE_SIZE = 100;
+    private static final int CATALOG_CACHED_PAGES = 10;
+
+    // Search runs this long after the last keystroke
+    private static final Duration SEARCH_DELAY = Duration.millis(250);
+    private static final int CACHED_SEARCHES = 50;
+
     private final BookApiService apiService;
+    private final CatalogSync catalogSync;
     private final TableView<Book> tableView;
+    private final LazyBookList catalog;
     private final ObservableList<Book> bookList;
 
     private final TextField titleField;
@@ -26,11 +53,37 @@ public class LibraryView extends BorderPane {
     private final TextField isbnField;
     private final DatePicker publishedDatePicker;
     private final TextField searchField;
+    private final PauseTransition searchDelay;
+    private final SearchResultCache searchCache;
+    private final Label statusLabel;
 
     private Book selectedBook = null;
 
+    // In-flight load or search; a newer one cancels it
+    private CompletableFuture<Integer> pendingResults = null;
+    // Term of the in-flight search, so retyping the same query does not send it again
+    private String pendingSearchTerm = null;
+
     public LibraryView() {
         this.apiService = new BookApiService();
+        this.catalogSync = new CatalogSync(apiService, openStore(), new CatalogSync.Listener() {
+            @Override
+            public void onCatalogChanged() {
+                Platform.runLater(() -> catalogChanged());
+            }
+
+            @Override
+            public void onStatus(boolean online, int pendingWrites) {
+                Platform.runLater(() -> showStatus(online, pendingWrites));
+            }
+
+            @Override
+            public void onProblem(String message) {
+                Platform.runLater(() -> showError("Sync problem", message));
+            }
+        });
+        this.catalog = new LazyBookList(catalogSync::page, CATALOG_PAGE_SIZE, CATALOG_CACHED_PAGES,
+                error -> showError("Failed to load books", error.getMessage()));
         this.bookList = FXCollections.observableArrayList();
         this.tableView = new TableView<>();
 
@@ -40,9 +93,35 @@ public class LibraryView extends BorderPane {
         this.isbnField = new TextField();
         this.publishedDatePicker = new DatePicker();
         this.searchField = new TextField();
+        this.searchDelay = new PauseTransition(SEARCH_DELAY);
+        this.searchCache = new SearchResultCache(CACHED_SEARCHES);
+        this.statusLabel = new Label("Connecting...");
 
         initializeUI();
+        // Renders from the replica right away; syncing with the server happens in the background
         loadBooks();
+        catalogSync.start();
+    }
+
+    // Stop syncing and close the local replica
+    public void shutdown() {
+        catalogSync.close();
+    }
+
+    // The replica file, from -Dlibrary.store (default ~/.library/catalog). If it cannot be opened,
+    // e.g. because another instance of the application holds it, the replica lives in memory.
+    private static LocalCatalogStore openStore() {
+        Path file = Path.of(System.getProperty("library.store",
+                Path.of(System.getProperty("user.home"), ".library", "catalog").toString()));
+        try {
+            return LocalCatalogStore.open(file);
+        } catch (SQLException e) {
+            try {
+                return LocalCatalogStore.inMemory();
+            } catch (SQLException inMemoryError) {
+                throw new IllegalStateException("Cannot create the local catalog", inMemoryError);
+            }
+        }
     }
 
     private void initializeUI() {
@@ -66,42 +145,45 @@ public class LibraryView extends BorderPane {
 
         this.setCenter(tableView);
         this.setRight(rightPanel);
+        this.setBottom(statusLabel);
         this.setPadding(new Insets(10));
     }
 
     private void setupTableView() {
+        // Direct accessors rather than PropertyValueFactory's reflective lookup. Only rows in
+        // visible cells are asked, so only they get JavaFX properties.
         // ID Column
         TableColumn<Book, Long> idCol = new TableColumn<>("ID");
-        idCol.setCellValueFactory(new PropertyValueFactory<>("id"));
+        idCol.setCellValueFactory(cell -> cell.getValue().idProperty());
         idCol.setPrefWidth(50);
 
         // Title Column
         TableColumn<Book, String> titleCol = new TableColumn<>("Title");
-        titleCol.setCellValueFactory(new PropertyValueFactory<>("title"));
+        titleCol.setCellValueFactory(cell -> cell.getValue().titleProperty());
         titleCol.setPrefWidth(200);
 
         // Author Column
         TableColumn<Book, String> authorCol = new TableColumn<>("Author");
-        authorCol.setCellValueFactory(new PropertyValueFactory<>("author"));
+        authorCol.setCellValueFactory(cell -> cell.getValue().authorProperty());
         authorCol.setPrefWidth(150);
 
         // ISBN Column
         TableColumn<Book, String> isbnCol = new TableColumn<>("ISBN");
-        isbnCol.setCellValueFactory(new PropertyValueFactory<>("isbn"));
+        isbnCol.setCellValueFactory(cell -> cell.getValue().isbnProperty());
         isbnCol.setPrefWidth(120);
 
         // Published Date Column
         TableColumn<Book, LocalDate> dateCol = new TableColumn<>("Published Date");
-        dateCol.setCellValueFactory(new PropertyValueFactory<>("publishedDate"));
+        dateCol.setCellValueFactory(cell -> cell.getValue().publishedDateProperty());
         dateCol.setPrefWidth(120);
 
         tableView.getColumns().addAll(idCol, titleCol, authorCol, isbnCol, dateCol);
-        tableView.setItems(bookList);
+        tableView.setItems(catalog);
 
         // Selection listener
         tableView.getSelectionModel().selectedItemProperty().addListener(
                 (obs, oldSelection, newSelection) -> {
-                    if (newSelection != null) {
+                    if (newSelection != null && !LazyBookList.isPlaceholder(newSelection)) {
                         populateForm(newSelection);
                     }
                 });
@@ -171,8 +253,15 @@ public class LibraryView extends BorderPane {
         searchButton.setStyle("-fx-background-color: #FF9800; -fx-text-fill: white;");
         refreshButton.setStyle("-fx-background-color: #607D8B; -fx-text-fill: white;");
 
-        searchButton.setOnAction(e -> searchBooks());
-        refreshButton.setOnAction(e -> loadBooks());
+        // Search as you type; the button and Enter search immediately
+        searchDelay.setOnFinished(e -> searchBooks(false));
+        searchField.textProperty().addListener((obs, oldText, newText) -> searchDelay.playFromStart());
+        searchField.setOnAction(e -> searchBooks(true));
+        searchButton.setOnAction(e -> searchBooks(true));
+        refreshButton.setOnAction(e -> {
+            catalogSync.requestSync();
+            loadBooks();
+        });
 
         searchPanel.getChildren().addAll(searchLabel, searchField, searchButton, refreshButton);
 
@@ -197,38 +286,144 @@ public class LibraryView extends BorderPane {
     }
 
     private void loadBooks() {
-        try {
-            List<Book> books = apiService.getAllBooks();
-            bookList.clear();
-            bookList.addAll(books);
-            searchField.clear();
-        } catch (Exception e) {
-            showError("Failed to load books", e.getMessage());
+        cancelPendingResults();
+        searchField.clear();
+        searchDelay.stop();
+        searchCache.clear();
+        tableView.setItems(catalog);
+        catalog.refresh();
+    }
+
+    private boolean showingCatalog() {
+        return tableView.getItems() == catalog;
+    }
+
+    // The replica changed, through a sync or a local write. The catalog re-reads its held pages
+    // locally. Search results are not re-run; the next search sees the changes.
+    private void catalogChanged() {
+        searchCache.clear();
+        if (showingCatalog()) {
+            catalog.refresh();
         }
     }
 
+    private void showStatus(boolean online, int pendingWrites) {
+        if (!online) {
+            statusLabel.setText("Offline - showing the local copy of the catalog"
+                    + (pendingWrites > 0 ? "; " + pendingWrites + " change(s) will be sent when the server is back" : ""));
+            statusLabel.setStyle("-fx-text-fill: #E65100;");
+        } else if (pendingWrites > 0) {
+            statusLabel.setText("Sending " + pendingWrites + " change(s)...");
+            statusLabel.setStyle("-fx-text-fill: #607D8B;");
+        } else {
+            statusLabel.setText("Up to date");
+            statusLabel.setStyle("-fx-text-fill: #607D8B;");
+        }
+    }
+
+    // Confirmation after a local write, which reaches the server now or once it is reachable
+    private void showSaved(String action) {
+        showSuccess(catalogSync.isOnline()
+                ? "Book " + action + " successfully!"
+                : "Book " + action + " locally. The change will be sent when the server is reachable.");
+    }
+
+    private void cancelPendingResults() {
+        if (pendingResults != null) {
+            pendingResults.cancel(true);
+            pendingResults = null;
+        }
+        pendingSearchTerm = null;
+    }
+
+    // Show results in the table as their batches arrive, unless a newer request supersedes
+    // them. The first batch replaces what the table showed; later batches are appended.
+    // onShown gets all the results once the last batch is in.
+    private void showResults(Function<Consumer<List<Book>>, CompletableFuture<Integer>> source,
+                             String errorTitle, Consumer<List<Book>> onShown) {
+        cancelPendingResults();
+        List<Book> received = new ArrayList<>();
+        AtomicReference<CompletableFuture<Integer>> self = new AtomicReference<>();
+
+        // Batches queue up on the FX thread behind this method, so self is set when they run
+        CompletableFuture<Integer> request = source.apply(batch -> Platform.runLater(() -> {
+            if (self.get() != pendingResults) {
+                return;
+            }
+            if (received.isEmpty()) {
+                bookList.setAll(batch);
+                tableView.setItems(bookList);
+            } else {
+                bookList.addAll(batch);
+            }
+            received.addAll(batch);
+        }));
+        self.set(request);
+        pendingResults = request;
+
+        onFxThread(request, (count, error) -> {
+            if (request != pendingResults) {
+                return;
+            }
+            pendingResults = null;
+            pendingSearchTerm = null;
+            if (error != null) {
+                showError(errorTitle, error.getMessage());
+                return;
+            }
+            if (received.isEmpty()) {
+                bookList.clear();
+                tableView.setItems(bookList);
+            }
+            onShown.accept(received);
+        });
+    }
+
+    // Run the callback on the JavaFX Application Thread once the request completes.
+    // Cancelled requests are dropped; failures are unwrapped from CompletionException.
+    private <T> void onFxThread(CompletableFuture<T> request, ResultHandler<T> handler) {
+        request.whenCompleteAsync((value, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause instanceof CancellationException) {
+                return;
+            }
+            handler.handle(value, cause);
+        }, Platform::runLater);
+    }
+
+    @FunctionalInterface
+    private interface ResultHandler<T> {
+        void handle(T value, Throwable error);
+    }
+
     private void addBook() {
         if (!validateForm()) {
             return;
         }
 
-        try {
-            Book newBook = new Book(
-                    null,
-                    titleField.getText(),
-                    authorField.getText(),
-                    isbnField.getText(),
-                    publishedDatePicker.getValue()
-            );
-
-            Book createdBook = apiService.addBook(newBook);
-            bookList.add(createdBook);
-            clearForm();
-            showSuccess("Book added successfully!");
+        Book newBook = new Book(
+                null,
+                titleField.getText(),
+                authorField.getText(),
+                isbnField.getText(),
+                publishedDatePicker.getValue()
+        );
 
-        } catch (Exception e) {
-            showError("Failed to add book", e.getMessage());
-        }
+        onFxThread(catalogSync.submit(BookOperation.Type.CREATE, newBook), (createdBook, error) -> {
+            if (error != null) {
+                showError("Failed to add book", error.getMessage());
+                return;
+            }
+            searchCache.clear();
+            if (showingCatalog()) {
+                catalog.refresh();
+            } else {
+                bookList.add(createdBook);
+            }
+            clearForm();
+            showSaved("added");
+        });
     }
 
     private void updateBook() {
@@ -241,29 +436,35 @@ public class LibraryView extends BorderPane {
             return;
         }
 
-        try {
-            Book updatedBook = new Book(
-                    selectedBook.getId(),
-                    titleField.getText(),
-                    authorField.getText(),
-                    isbnField.getText(),
-                    publishedDatePicker.getValue()
-            );
+        Book originalBook = selectedBook;
+        Book updatedBook = new Book(
+                originalBook.getId(),
+                titleField.getText(),
+                authorField.getText(),
+                isbnField.getText(),
+                publishedDatePicker.getValue()
+        );
 
-            apiService.updateBook(selectedBook.getId(), updatedBook);
+        onFxThread(catalogSync.submit(BookOperation.Type.UPDATE, updatedBook), (result, error) -> {
+            if (error != null) {
+                showError("Failed to update book", error.getMessage());
+                return;
+            }
 
             // Update the book in the list
-            int index = bookList.indexOf(selectedBook);
-            if (index >= 0) {
-                bookList.set(index, updatedBook);
+            searchCache.clear();
+            if (showingCatalog()) {
+                catalog.refresh();
+            } else {
+                int index = bookList.indexOf(originalBook);
+                if (index >= 0) {
+                    bookList.set(index, updatedBook);
+                }
             }
 
             clearForm();
-            showSuccess("Book updated successfully!");
-
-        } catch (Exception e) {
-            showError("Failed to update book", e.getMessage());
-        }
+            showSaved("updated");
+        });
     }
 
     private void deleteBook() {
@@ -279,37 +480,67 @@ public class LibraryView extends BorderPane {
 
         Optional<ButtonType> result = confirmation.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                apiService.deleteBook(selectedBook.getId());
-                bookList.remove(selectedBook);
+            Book bookToDelete = selectedBook;
+            onFxThread(catalogSync.submit(BookOperation.Type.DELETE, bookToDelete), (ignored, error) -> {
+                if (error != null) {
+                    showError("Failed to delete book", error.getMessage());
+                    return;
+                }
+                searchCache.clear();
+                if (showingCatalog()) {
+                    catalog.refresh();
+                } else {
+                    bookList.remove(bookToDelete);
+                }
                 clearForm();
-                showSuccess("Book deleted successfully!");
-
-            } catch (Exception e) {
-                showError("Failed to delete book", e.getMessage());
-            }
+                showSaved("deleted");
+            });
         }
     }
 
-    private void searchBooks() {
+    // Explicit searches (button or Enter) report an empty result; searches while typing do not
+    private void searchBooks(boolean explicit) {
+        searchDelay.stop();
         String searchTerm = searchField.getText().trim();
 
         if (searchTerm.isEmpty()) {
-            loadBooks();
+            if (!showingCatalog()) {
+                loadBooks();
+            }
             return;
         }
 
-        try {
-            List<Book> books = apiService.searchBooks(searchTerm);
-            bookList.clear();
-            bookList.addAll(books);
+        List<Book> cached = searchCache.lookup(searchTerm);
+        if (cached != null) {
+            cancelPendingResults();
+            bookList.setAll(cached);
+            tableView.setItems(bookList);
+            reportEmptySearch(explicit, searchTerm, cached);
+            return;
+        }
 
-            if (books.isEmpty()) {
-                showInfo("No results", "No books found matching: " + searchTerm);
-            }
+        if (searchTerm.equalsIgnoreCase(pendingSearchTerm)) {
+            return;
+        }
+
+        // The server's index is faster and its results stream in; the replica answers in one go
+        // while the server is unreachable
+        Function<Consumer<List<Book>>, CompletableFuture<Integer>> source = catalogSync.isOnline()
+                ? onBatch -> apiService.searchBooksAsync(searchTerm, onBatch)
+                : onBatch -> catalogSync.search(searchTerm).thenApply(books -> {
+                    onBatch.accept(books);
+                    return books.size();
+                });
+        showResults(source, "Failed to search books", books -> {
+            searchCache.put(searchTerm, books);
+            reportEmptySearch(explicit, searchTerm, books);
+        });
+        pendingSearchTerm = searchTerm;
+    }
 
-        } catch (Exception e) {
-            showError("Failed to search books", e.getMessage());
+    private void reportEmptySearch(boolean explicit, String searchTerm, List<Book> books) {
+        if (explicit && books.isEmpty()) {
+            showInfo("No results", "No books found matching: " + searchTerm);
         }
     }
 
@@ -0,0 +1,14 @@
+package com.library.frontend.data;
+
+import com.library.frontend.model.BookPage;
+
+import java.util.concurrent.CompletableFuture;
+
+// Where LazyBookList gets its pages from: the local replica (CatalogSync.page)
+@FunctionalInterface
+public interface BookPageSource {
+
+    // Fetch a page in id order. `cached` is the copy already held (or null); it may be
+    // returned as is when it is still current.
+    CompletableFuture<BookPage> fetch(int page, int size, BookPage cached);
+}
@@ -0,0 +1,208 @@
+package com.library.frontend.data;
+
+import com.library.frontend.model.Book;
+import com.library.frontend.model.BookPage;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// Read-only list over the whole catalog that only holds the pages around the viewport.
+// TableView asks for rows through get(); missing pages are fetched from the page source
+// and shown as placeholders until they arrive. At most maxCachedPages pages are kept (LRU),
+// and the next page in the scroll direction is prefetched. Refreshing revalidates the held pages
+// against the source, which hands back the held copy when a page is unchanged.
+// Must only be used from the JavaFX Application Thread.
+public class LazyBookList extends ObservableListBase<Book> {
+
+    // Shown for rows whose page has not arrived yet
+    private static final Book PLACEHOLDER = new Book(null, "Loading...", "", "", null);
+
+    private final BookPageSource source;
+    private final int pageSize;
+    private final Consumer<Throwable> errorHandler;
+
+    // Page number -> page, in access order so the least recently viewed page is evicted first
+    private final LinkedHashMap<Integer, BookPage> pages;
+    private final Map<Integer, CompletableFuture<BookPage>> inFlight = new HashMap<>();
+
+    private int size;
+    private int lastAccessedPage = -1;
+    // Bumped by refresh() so responses to older requests are ignored
+    private int generation;
+    // Stop refetching after a failure until the next refresh()
+    private boolean failed;
+
+    public LazyBookList(BookPageSource source, int pageSize, int maxCachedPages,
+                        Consumer<Throwable> errorHandler) {
+        this.source = source;
+        this.pageSize = pageSize;
+        this.errorHandler = errorHandler;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, BookPage> eldest) {
+                return size() > maxCachedPages;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Book get(int index) {
+        Objects.checkIndex(index, size);
+        int page = index / pageSize;
+        BookPage held = pages.get(page);
+        if (held == null) {
+            request(page);
+        }
+
+        if (page != lastAccessedPage) {
+            if (lastAccessedPage >= 0) {
+                prefetch(page > lastAccessedPage ? page + 1 : page - 1);
+            }
+            lastAccessedPage = page;
+        }
+
+        int offset = index % pageSize;
+        List<Book> rows = held != null ? held.getContent() : null;
+        return rows != null && offset < rows.size() ? rows.get(offset) : PLACEHOLDER;
+    }
+
+    // Re-fetch the pages currently held (or the first page), keeping the rows on screen until
+    // the new data arrives
+    public void refresh() {
+        generation++;
+        failed = false;
+        for (CompletableFuture<BookPage> request : inFlight.values()) {
+            request.cancel(true);
+        }
+        inFlight.clear();
+
+        List<Integer> held = new ArrayList<>(pages.keySet());
+        if (held.isEmpty()) {
+            held.add(0);
+        }
+        for (int page : held) {
+            request(page);
+        }
+    }
+
+    public static boolean isPlaceholder(Book book) {
+        return book == PLACEHOLDER;
+    }
+
+    // Only looks at the pages held in memory; searching the whole list would fetch the whole catalog
+    @Override
+    public int indexOf(Object o) {
+        for (Map.Entry<Integer, BookPage> entry : pages.entrySet()) {
+            List<Book> rows = entry.getValue().getContent();
+            int offset = rows != null ? rows.indexOf(o) : -1;
+            if (offset >= 0) {
+                return entry.getKey() * pageSize + offset;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    // Identity semantics, for the same reason as indexOf
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+
+    // Held page, without touching the LRU order
+    private BookPage peek(int page) {
+        for (Map.Entry<Integer, BookPage> entry : pages.entrySet()) {
+            if (entry.getKey() == page) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void prefetch(int page) {
+        if (page >= 0 && page * pageSize < size && !pages.containsKey(page)) {
+            request(page);
+        }
+    }
+
+    private void request(int page) {
+        if (failed || inFlight.containsKey(page)) {
+            return;
+        }
+        int requestGeneration = generation;
+        CompletableFuture<BookPage> request = source.fetch(page, pageSize, peek(page));
+        inFlight.put(page, request);
+
+        request.whenCompleteAsync((result, error) -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            inFlight.remove(page);
+            if (error != null) {
+                failed = true;
+                errorHandler.accept(error.getCause() != null ? error.getCause() : error);
+                return;
+            }
+            pageLoaded(page, result);
+        }, Platform::runLater);
+    }
+
+    private void pageLoaded(int page, BookPage result) {
+        resize((int) Math.min(result.getTotalElements(), Integer.MAX_VALUE));
+        if (pages.put(page, result) == result) {
+            // Not modified - the rows on screen are already current
+            return;
+        }
+
+        List<Book> rows = result.getContent() != null ? result.getContent() : Collections.emptyList();
+
+        int from = page * pageSize;
+        int to = Math.min(from + rows.size(), size);
+        if (from < to) {
+            beginChange();
+            for (int i = from; i < to; i++) {
+                nextSet(i, PLACEHOLDER);
+            }
+            endChange();
+        }
+    }
+
+    private void resize(int newSize) {
+        if (newSize == size) {
+            return;
+        }
+        int oldSize = size;
+        size = newSize;
+        beginChange();
+        if (newSize > oldSize) {
+            nextAdd(oldSize, newSize);
+        } else {
+            pages.keySet().removeIf(page -> page * pageSize >= newSize);
+            nextRemove(newSize, Collections.nCopies(oldSize - newSize, PLACEHOLDER));
+        }
+        endChange();
+    }
+}
@@ -0,0 +1,586 @@
+package com.library.frontend.data;
+
+import com.library.frontend.model.Book;
+import com.library.frontend.model.BookBatchResult;
+import com.library.frontend.model.BookChanges;
+import com.library.frontend.model.BookOperation;
+import com.library.frontend.model.BookPage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Local replica of the catalog in an embedded H2 database, plus the queue of writes that
+// have not reached the server yet. The table renders from here, so startup does not wait
+// for the network.
+// Local writes are applied to the replica at once and queued. Books created offline get
+// negative ids until the server assigns real ones. Each row keeps the server version it was
+// last synced at, and each queued update or delete the version it was made on, so the server
+// refuses it instead of overwriting what others wrote in the meantime.
+// Writes use one connection and reads use another, so reads see the last committed state and
+// never wait for a sync.
+public class LocalCatalogStore implements AutoCloseable {
+
+    // Outcome of replaying queued writes
+    public record ReplayOutcome(int applied, List<String> rejections) {}
+
+    // A write waiting to be sent; bookId is negative for a book created offline.
+    // expectedVersion is null for creates, and where the version is not known.
+    public record PendingWrite(long sequence, BookOperation.Type type, Long bookId, Long expectedVersion,
+                               String idempotencyKey, Book book) {}
+
+    private static final String SINCE = "since";
+    private static final String NEXT_TEMPORARY_ID = "next_temporary_id";
+    private static final String BOOK_COUNT = "book_count";
+
+    private final Connection writer;
+    private final Connection reader;
+    // Bumped on every committed change; pages carry it as their ETag
+    private final AtomicLong revision = new AtomicLong();
+    // Page number -> id of its last row, for the pages read at pageEndsRevision. A page is read
+    // after the nearest end before it instead of skipping every row in front. Guarded by reader.
+    private final TreeMap<Integer, Long> pageEnds = new TreeMap<>();
+    private long pageEndsRevision = -1;
+    private int pageEndsSize;
+
+    private LocalCatalogStore(String url) throws SQLException {
+        this.writer = DriverManager.getConnection(url, "sa", "");
+        this.reader = DriverManager.getConnection(url, "sa", "");
+        try (Statement statement = writer.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS books (" +
+                    "id BIGINT PRIMARY KEY, title VARCHAR(255), author VARCHAR(255), " +
+                    "isbn VARCHAR(255), published_date DATE)");
+            statement.execute("ALTER TABLE books ADD COLUMN IF NOT EXISTS version BIGINT");
+            statement.execute("CREATE TABLE IF NOT EXISTS sync_state (name VARCHAR(50) PRIMARY KEY, val BIGINT)");
+            statement.execute("CREATE TABLE IF NOT EXISTS pending_writes (" +
+                    "seq BIGINT AUTO_INCREMENT PRIMARY KEY, op VARCHAR(10) NOT NULL, book_id BIGINT, " +
+                    "idempotency_key VARCHAR(64) NOT NULL, title VARCHAR(255), author VARCHAR(255), " +
+                    "isbn VARCHAR(255), published_date DATE)");
+            statement.execute("ALTER TABLE pending_writes ADD COLUMN IF NOT EXISTS expected_version BIGINT");
+        }
+        writer.setAutoCommit(false);
+        // Replicas written before the count was kept count their rows once
+        if (readState(BOOK_COUNT, -1) < 0) {
+            try (Statement statement = writer.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM books")) {
+                rs.next();
+                writeState(BOOK_COUNT, rs.getLong(1));
+            }
+            writer.commit();
+        }
+    }
+
+    // Open (or create) the replica in the given file, e.g. ~/.library/catalog
+    public static LocalCatalogStore open(Path file) throws SQLException {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            throw new SQLException("Cannot create " + file.getParent(), e);
+        }
+        return new LocalCatalogStore("jdbc:h2:file:" + file.toAbsolutePath());
+    }
+
+    // A replica that lives only as long as the process, when the file is unavailable
+    public static LocalCatalogStore inMemory() throws SQLException {
+        return new LocalCatalogStore("jdbc:h2:mem:catalog-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    // One page of the replica in id order, or `cached` itself if nothing changed since it was read.
+    // Scrolling reads each page after the previous one's last id; a jump only skips the pages
+    // between it and the nearest page already read at this revision.
+    public BookPage page(int page, int size, BookPage cached) throws SQLException {
+        long revisionNow = revision.get();
+        String current = String.valueOf(revisionNow);
+        if (cached != null && current.equals(cached.getETag())) {
+            return cached;
+        }
+        synchronized (reader) {
+            if (pageEndsRevision != revisionNow || pageEndsSize != size) {
+                pageEnds.clear();
+                pageEndsRevision = revisionNow;
+                pageEndsSize = size;
+            }
+            long total;
+            try (PreparedStatement statement = reader.prepareStatement("SELECT val FROM sync_state WHERE name = ?")) {
+                statement.setString(1, BOOK_COUNT);
+                try (ResultSet rs = statement.executeQuery()) {
+                    total = rs.next() ? rs.getLong(1) : 0;
+                }
+            }
+
+            Map.Entry<Integer, Long> before = pageEnds.lowerEntry(page);
+            long afterId = before != null ? before.getValue() : Long.MIN_VALUE;
+            long skip = (long) (page - (before != null ? before.getKey() + 1 : 0)) * size;
+            List<Book> books = new ArrayList<>(size);
+            try (PreparedStatement statement = reader.prepareStatement(
+                    "SELECT id, title, author, isbn, published_date, version FROM books WHERE id > ? ORDER BY id " +
+                            (skip > 0 ? "LIMIT ? OFFSET ?" : "LIMIT ?"))) {
+                statement.setLong(1, afterId);
+                statement.setInt(2, size);
+                if (skip > 0) {
+                    statement.setLong(3, skip);
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        books.add(readBook(rs));
+                    }
+                }
+            }
+            if (books.size() == size) {
+                pageEnds.put(page, books.get(size - 1).getId());
+            }
+            BookPage result = new BookPage(books, total, page, size);
+            result.setETag(current);
+            return result;
+        }
+    }
+
+    // Books whose title or author contains the term, like /api/books/search
+    public List<Book> search(String term) throws SQLException {
+        String pattern = "%" + term.toLowerCase().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        synchronized (reader) {
+            List<Book> books = new ArrayList<>();
+            try (PreparedStatement statement = reader.prepareStatement(
+                    "SELECT id, title, author, isbn, published_date, version FROM books " +
+                            "WHERE LOWER(title) LIKE ? ESCAPE '\\' OR LOWER(author) LIKE ? ESCAPE '\\' ORDER BY id")) {
+                statement.setString(1, pattern);
+                statement.setString(2, pattern);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        books.add(readBook(rs));
+                    }
+                }
+            }
+            return books;
+        }
+    }
+
+    // Cursor for the next /api/books/changes request; 0 until a full copy has been made
+    public synchronized long since() throws SQLException {
+        return readState(SINCE, 0);
+    }
+
+    // Apply one window of a full copy of the catalog, read in id order: the server's books with
+    // ids after afterId, up to the window's last id, or without an end for the last window.
+    // Local books in that range the server did not send are gone from it, e.g. after the
+    // backend's in-memory database was reset. Books with queued local writes are left alone,
+    // as in applyChanges. Each window commits on its own; the last one sets the cursor to
+    // changesSince, which was taken before the first window was read.
+    public synchronized void applyFill(long afterId, List<Book> books, boolean last, long changesSince)
+            throws SQLException {
+        try {
+            long upTo = last || books.isEmpty() ? Long.MAX_VALUE : books.get(books.size() - 1).getId();
+            try (PreparedStatement statement = writer.prepareStatement(
+                    "DELETE FROM books WHERE id > ? AND id <= ? AND id NOT IN " +
+                            "(SELECT book_id FROM pending_writes WHERE book_id IS NOT NULL)")) {
+                statement.setLong(1, afterId);
+                statement.setLong(2, upTo);
+                countBooks(-statement.executeUpdate());
+            }
+            Set<Long> pending = pendingBookIds();
+            Map<Long, Book> upserts = new LinkedHashMap<>();
+            for (Book book : books) {
+                if (!pending.contains(book.getId())) {
+                    upserts.put(book.getId(), book);
+                }
+            }
+            upsertBooks(upserts, true);
+            if (last) {
+                writeState(SINCE, changesSince);
+            }
+            commit();
+        } catch (SQLException e) {
+            writer.rollback();
+            throw e;
+        }
+    }
+
+    // Apply a delta from the server. Books with queued local writes are left alone: the replay
+    // brings their final state. moveCursor takes the delta's nextSince as the cursor; without it
+    // the cursor stays, for deltas that may not cover everything since it.
+    public synchronized void applyChanges(BookChanges changes, boolean moveCursor) throws SQLException {
+        try {
+            Set<Long> pending = pendingBookIds();
+            if (changes.getUpserts() != null) {
+                Map<Long, Book> upserts = new LinkedHashMap<>();
+                for (Book book : changes.getUpserts()) {
+                    if (!pending.contains(book.getId())) {
+                        upserts.put(book.getId(), book);
+                    }
+                }
+                upsertBooks(upserts, true);
+            }
+            if (changes.getDeletions() != null) {
+                try (PreparedStatement statement = writer.prepareStatement("DELETE FROM books WHERE id = ?")) {
+                    for (Long id : changes.getDeletions()) {
+                        if (!pending.contains(id)) {
+                            statement.setLong(1, id);
+                            statement.addBatch();
+                        }
+                    }
+                    countBooks(-sum(statement.executeBatch()));
+                }
+            }
+            if (moveCursor) {
+                writeState(SINCE, Math.max(readState(SINCE, 0), changes.getNextSince()));
+            }
+            commit();
+        } catch (SQLException e) {
+            writer.rollback();
+            throw e;
+        }
+    }
+
+    // Forget the sync cursor, so the next sync copies the whole catalog again
+    public synchronized void resetSince() throws SQLException {
+        writeState(SINCE, 0);
+        writer.commit();
+    }
+
+    // Apply a write to the replica and queue it for the server.
+    // Returns the book as stored locally (with a temporary id for a new book).
+    public synchronized Book enqueue(BookOperation.Type type, Book book) throws SQLException {
+        try {
+            Long id = book.getId();
+            Long expectedVersion = type == BookOperation.Type.CREATE ? null : syncedVersion(id);
+            switch (type) {
+                case CREATE -> {
+                    id = readState(NEXT_TEMPORARY_ID, -1);
+                    writeState(NEXT_TEMPORARY_ID, id - 1);
+                    try (PreparedStatement statement = writer.prepareStatement(
+                            "INSERT INTO books (id, title, author, isbn, published_date) VALUES (?, ?, ?, ?, ?)")) {
+                        bindBook(statement, id, book);
+                        statement.executeUpdate();
+                    }
+                    countBooks(1);
+                }
+                case UPDATE -> upsertBooks(Map.of(id, book), false);
+                case DELETE -> deleteBook(id);
+            }
+
+            try (PreparedStatement statement = writer.prepareStatement(
+                    "INSERT INTO pending_writes (op, book_id, expected_version, idempotency_key, " +
+                            "title, author, isbn, published_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                statement.setString(1, type.name());
+                statement.setLong(2, id);
+                statement.setObject(3, expectedVersion, Types.BIGINT);
+                statement.setString(4, UUID.randomUUID().toString());
+                statement.setString(5, book.getTitle());
+                statement.setString(6, book.getAuthor());
+                statement.setString(7, book.getIsbn());
+                statement.setDate(8, book.getPublishedDate() != null ? Date.valueOf(book.getPublishedDate()) : null);
+                statement.executeUpdate();
+            }
+            commit();
+            Book stored = new Book(id, book.getTitle(), book.getAuthor(), book.getIsbn(), book.getPublishedDate());
+            stored.setVersion(expectedVersion);
+            return stored;
+        } catch (SQLException e) {
+            writer.rollback();
+            throw e;
+        }
+    }
+
+    // The oldest queued writes that can go to the server together. The batch ends before a
+    // write to a book that is already in it (the server rejects those) and before a write to a
+    // book created offline, which has to wait until its create returns the real id.
+    public synchronized List<PendingWrite> nextBatch(int maxWrites) throws SQLException {
+        List<PendingWrite> batch = new ArrayList<>();
+        Set<Long> books = new HashSet<>();
+        try (PreparedStatement statement = writer.prepareStatement(
+                "SELECT seq, op, book_id, expected_version, idempotency_key, title, author, isbn, published_date " +
+                        "FROM pending_writes ORDER BY seq LIMIT ?")) {
+            statement.setInt(1, maxWrites);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    BookOperation.Type type = BookOperation.Type.valueOf(rs.getString("op"));
+                    long bookId = rs.getLong("book_id");
+                    if (type != BookOperation.Type.CREATE && (bookId < 0 || !books.add(bookId))) {
+                        break;
+                    }
+                    Date published = rs.getDate("published_date");
+                    Book book = new Book(bookId, rs.getString("title"), rs.getString("author"),
+                            rs.getString("isbn"), published != null ? published.toLocalDate() : null);
+                    Long expectedVersion = rs.getObject("expected_version", Long.class);
+                    batch.add(new PendingWrite(rs.getLong("seq"), type, bookId, expectedVersion,
+                            rs.getString("idempotency_key"), book));
+                }
+            }
+        }
+        return batch;
+    }
+
+    public synchronized int pendingCount() throws SQLException {
+        try (Statement statement = writer.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM pending_writes")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    // Settle a sent batch with the server's results (same order). Books created offline take
+    // their real ids, also in the writes still queued for them. A rejected write is dropped; a
+    // rejected create also drops its local row, and other rejected writes leave the replica
+    // ahead of the server until the next full sync, which the caller should request.
+    public synchronized ReplayOutcome complete(List<PendingWrite> batch, List<BookBatchResult.OperationResult> results)
+            throws SQLException {
+        int applied = 0;
+        List<String> rejections = new ArrayList<>();
+        List<BookBatchResult.OperationResult> stored = new ArrayList<>();
+        try {
+            try (PreparedStatement statement = writer.prepareStatement("DELETE FROM pending_writes WHERE seq = ?")) {
+                for (PendingWrite write : batch) {
+                    statement.setLong(1, write.sequence());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                PendingWrite write = batch.get(i);
+                BookBatchResult.OperationResult result = results.get(i);
+                if (!result.isApplied()) {
+                    rejections.add(write.type() + " " + write.book().getTitle() + ": " + result.getReason());
+                    if (write.type() == BookOperation.Type.CREATE) {
+                        // Later edits of a book that was never created cannot be sent either
+                        deleteBook(write.bookId());
+                        dropWritesFor(write.bookId());
+                    }
+                    continue;
+                }
+                applied++;
+                if (write.type() == BookOperation.Type.CREATE && result.getId() != null) {
+                    assignId(write.bookId(), result.getId());
+                }
+                if (write.type() != BookOperation.Type.DELETE) {
+                    // The book's next queued write was made on top of this one. A replayed result
+                    // carries no book, so that write goes out without a version.
+                    Long version = result.getBook() != null ? result.getBook().getVersion() : null;
+                    rebaseWritesFor(result.getId(), version);
+                    if (result.getBook() != null) {
+                        stored.add(result);
+                    }
+                }
+            }
+
+            // Take the server's copy, unless the book was edited again locally in the meantime;
+            // then only its version, which the local edit is based on
+            Set<Long> pending = pendingBookIds();
+            Map<Long, Book> upserts = new LinkedHashMap<>();
+            for (BookBatchResult.OperationResult result : stored) {
+                if (!pending.contains(result.getId())) {
+                    upserts.put(result.getId(), result.getBook());
+                } else {
+                    setSyncedVersion(result.getId(), result.getBook().getVersion());
+                }
+            }
+            upsertBooks(upserts, true);
+            commit();
+            return new ReplayOutcome(applied, rejections);
+        } catch (SQLException e) {
+            writer.rollback();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws SQLException {
+        try {
+            reader.close();
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void assignId(long temporaryId, long id) throws SQLException {
+        try (PreparedStatement statement = writer.prepareStatement("UPDATE books SET id = ? WHERE id = ?")) {
+            statement.setLong(1, id);
+            statement.setLong(2, temporaryId);
+            statement.executeUpdate();
+        }
+        try (PreparedStatement statement = writer.prepareStatement(
+                "UPDATE pending_writes SET book_id = ? WHERE book_id = ?")) {
+            statement.setLong(1, id);
+            statement.setLong(2, temporaryId);
+            statement.executeUpdate();
+        }
+    }
+
+    // Version the server had when the replica last synced the book
+    private Long syncedVersion(long id) throws SQLException {
+        try (PreparedStatement statement = writer.prepareStatement("SELECT version FROM books WHERE id = ?")) {
+            statement.setLong(1, id);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getObject(1, Long.class) : null;
+            }
+        }
+    }
+
+    private void setSyncedVersion(long id, Long version) throws SQLException {
+        try (PreparedStatement statement = writer.prepareStatement("UPDATE books SET version = ? WHERE id = ?")) {
+            statement.setObject(1, version, Types.BIGINT);
+            statement.setLong(2, id);
+            statement.executeUpdate();
+        }
+    }
+
+    private void rebaseWritesFor(long bookId, Long version) throws SQLException {
+        try (PreparedStatement statement = writer.prepareStatement(
+                "UPDATE pending_writes SET expected_version = ? WHERE book_id = ?")) {
+            statement.setObject(1, version, Types.BIGINT);
+            statement.setLong(2, bookId);
+            statement.executeUpdate();
+        }
+    }
+
+    private void dropWritesFor(long bookId) throws SQLException {
+        try (PreparedStatement statement = writer.prepareStatement("DELETE FROM pending_writes WHERE book_id = ?")) {
+            statement.setLong(1, bookId);
+            statement.executeUpdate();
+        }
+    }
+
+    private void deleteBook(long id) throws SQLException {
+        try (PreparedStatement statement = writer.prepareStatement("DELETE FROM books WHERE id = ?")) {
+            statement.setLong(1, id);
+            countBooks(-statement.executeUpdate());
+        }
+    }
+
+    // Replace the books that exist and insert the rest, counting the inserted ones. Server
+    // copies bring their version; local edits keep the version they were made on.
+    private void upsertBooks(Map<Long, Book> books, boolean serverCopies) throws SQLException {
+        if (books.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Book>> entries = new ArrayList<>(books.entrySet());
+        int[] updated;
+        try (PreparedStatement statement = writer.prepareStatement(
+                "UPDATE books SET title = ?, author = ?, isbn = ?, published_date = ?" +
+                        (serverCopies ? ", version = ?" : "") + " WHERE id = ?")) {
+            for (Map.Entry<Long, Book> entry : entries) {
+                bindFields(statement, 1, entry.getValue());
+                if (serverCopies) {
+                    statement.setObject(5, entry.getValue().getVersion(), Types.BIGINT);
+                }
+                statement.setLong(serverCopies ? 6 : 5, entry.getKey());
+                statement.addBatch();
+            }
+            updated = statement.executeBatch();
+        }
+        try (PreparedStatement statement = writer.prepareStatement(
+                "INSERT INTO books (id, title, author, isbn, published_date, version) VALUES (?, ?, ?, ?, ?, ?)")) {
+            int inserted = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                if (updated[i] == 0) {
+                    Book book = entries.get(i).getValue();
+                    bindBook(statement, entries.get(i).getKey(), book);
+                    statement.setObject(6, serverCopies ? book.getVersion() : null, Types.BIGINT);
+                    statement.addBatch();
+                    inserted++;
+                }
+            }
+            if (inserted > 0) {
+                statement.executeBatch();
+                countBooks(inserted);
+            }
+        }
+    }
+
+    // Keep the row count in sync_state, in the transaction that changes the rows
+    private void countBooks(int delta) throws SQLException {
+        if (delta == 0) {
+            return;
+        }
+        try (PreparedStatement statement = writer.prepareStatement(
+                "UPDATE sync_state SET val = val + ? WHERE name = ?")) {
+            statement.setLong(1, delta);
+            statement.setString(2, BOOK_COUNT);
+            statement.executeUpdate();
+        }
+    }
+
+    private Set<Long> pendingBookIds() throws SQLException {
+        Set<Long> ids = new HashSet<>();
+        try (Statement statement = writer.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT DISTINCT book_id FROM pending_writes")) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    private long readState(String name, long defaultValue) throws SQLException {
+        try (PreparedStatement statement = writer.prepareStatement("SELECT val FROM sync_state WHERE name = ?")) {
+            statement.setString(1, name);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : defaultValue;
+            }
+        }
+    }
+
+    private void writeState(String name, long value) throws SQLException {
+        try (PreparedStatement statement = writer.prepareStatement(
+                "MERGE INTO sync_state (name, val) KEY (name) VALUES (?, ?)")) {
+            statement.setString(1, name);
+            statement.setLong(2, value);
+            statement.executeUpdate();
+        }
+    }
+
+    private void commit() throws SQLException {
+        writer.commit();
+        revision.incrementAndGet();
+    }
+
+    private static void bindBook(PreparedStatement statement, long id, Book book) throws SQLException {
+        statement.setLong(1, id);
+        bindFields(statement, 2, book);
+    }
+
+    // Title, author, isbn and published date from parameter `first` on
+    private static void bindFields(PreparedStatement statement, int first, Book book) throws SQLException {
+        statement.setString(first, book.getTitle());
+        statement.setString(first + 1, book.getAuthor());
+        statement.setString(first + 2, book.getIsbn());
+        if (book.getPublishedDate() != null) {
+            statement.setDate(first + 3, Date.valueOf(book.getPublishedDate()));
+        } else {
+            statement.setNull(first + 3, Types.DATE);
+        }
+    }
+
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    private static Book readBook(ResultSet rs) throws SQLException {
+        Date published = rs.getDate("published_date");
+        Book book = new Book(rs.getLong("id"), rs.getString("title"), rs.getString("author"),
+                rs.getString("isbn"), published != null ? published.toLocalDate() : null);
+        book.setVersion(rs.getObject("version", Long.class));
+        return book;
+    }
+}
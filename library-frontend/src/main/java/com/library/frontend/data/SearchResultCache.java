@@ -0,0 +1,77 @@
+package com.library.frontend.data;
+
+import com.library.frontend.model.Book;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Recent search results keyed by lower-cased term, for search-as-you-type.
+// The backend matches a term as a case-insensitive substring of title or author, so the results
+// for a term are a subset of the results for any cached term it contains: narrowing a query is
+// answered by filtering that cached superset instead of asking the server again.
+// Must only be used from the JavaFX Application Thread.
+public class SearchResultCache {
+
+    private final LinkedHashMap<String, List<Book>> entries;
+
+    public SearchResultCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Book>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    // Cached or locally refined results for the term, or null if the server has to be asked
+    public List<Book> lookup(String term) {
+        String key = normalize(term);
+        List<Book> results = entries.get(key);
+        if (results != null) {
+            return results;
+        }
+
+        // Filter the smallest cached superset
+        String supersetKey = null;
+        List<Book> superset = null;
+        for (Map.Entry<String, List<Book>> entry : entries.entrySet()) {
+            if (key.contains(entry.getKey()) && (superset == null || entry.getValue().size() < superset.size())) {
+                supersetKey = entry.getKey();
+                superset = entry.getValue();
+            }
+        }
+        if (superset == null) {
+            return null;
+        }
+        entries.get(supersetKey);
+
+        List<Book> refined = new ArrayList<>();
+        for (Book book : superset) {
+            if (contains(book.getTitle(), key) || contains(book.getAuthor(), key)) {
+                refined.add(book);
+            }
+        }
+        entries.put(key, refined);
+        return refined;
+    }
+
+    public void put(String term, List<Book> results) {
+        entries.put(normalize(term), new ArrayList<>(results));
+    }
+
+    // Drop everything, e.g. after a write made the cached results stale
+    public void clear() {
+        entries.clear();
+    }
+
+    private static boolean contains(String text, String key) {
+        return text != null && normalize(text).contains(key);
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -5,6 +5,9 @@ import javafx.beans.property.*;
 
 import java.time.LocalDate;
 
+// A row of the catalog. The plain fields are the data; the JavaFX properties that table cells
+// bind to live in a separate holder that is only created when a cell first asks for one, so the
+// thousands of rows that are never scrolled into view stay plain fields and no properties.
 public class Book {
 
     @Expose
@@ -17,12 +20,12 @@ public class Book {
     private String isbn;
     @Expose
     private LocalDate publishedDate;
+    // Server version this copy was read at; null for a book the server has not stored yet.
+    // Not shown, so it has no property.
+    @Expose
+    private Long version;
 
-    private transient LongProperty idProperty;
-    private transient StringProperty titleProperty;
-    private transient StringProperty authorProperty;
-    private transient StringProperty isbnProperty;
-    private transient ObjectProperty<LocalDate> publishedDateProperty;
+    private transient Properties properties;
 
     public Book() {
         this(null, "", "", "", null);
@@ -43,14 +46,13 @@ public class Book {
 
     public void setId(Long value) {
         this.id = value;
-        idProperty().set(value != null ? value : 0);
+        if (properties != null) {
+            properties.id.set(value);
+        }
     }
 
-    public LongProperty idProperty() {
-        if (idProperty == null) {
-            idProperty = new SimpleLongProperty(this, "id", id != null ? id : 0);
-        }
-        return idProperty;
+    public ObjectProperty<Long> idProperty() {
+        return properties().id;
     }
 
     // Title Property
@@ -60,14 +62,13 @@ public class Book {
 
     public void setTitle(String value) {
         this.title = value;
-        titleProperty().set(value);
+        if (properties != null) {
+            properties.title.set(value);
+        }
     }
 
     public StringProperty titleProperty() {
-        if (titleProperty == null) {
-            titleProperty = new SimpleStringProperty(this, "title", title);
-        }
-        return titleProperty;
+        return properties().title;
     }
 
     // Author Property
@@ -77,14 +78,13 @@ public class Book {
 
     public void setAuthor(String value) {
         this.author = value;
-        authorProperty().set(value);
+        if (properties != null) {
+            properties.author.set(value);
+        }
     }
 
     public StringProperty authorProperty() {
-        if (authorProperty == null) {
-            authorProperty = new SimpleStringProperty(this, "author", author);
-        }
-        return authorProperty;
+        return properties().author;
     }
 
     // ISBN Property
@@ -94,14 +94,13 @@ public class Book {
 
     public void setIsbn(String value) {
         this.isbn = value;
-        isbnProperty().set(value);
+        if (properties != null) {
+            properties.isbn.set(value);
+        }
     }
 
     public StringProperty isbnProperty() {
-        if (isbnProperty == null) {
-            isbnProperty = new SimpleStringProperty(this, "isbn", isbn);
-        }
-        return isbnProperty;
+        return properties().isbn;
     }
 
     // Published Date Property
@@ -111,14 +110,45 @@ public class Book {
 
     public void setPublishedDate(LocalDate value) {
         this.publishedDate = value;
-        publishedDateProperty().set(value);
+        if (properties != null) {
+            properties.publishedDate.set(value);
+        }
     }
 
     public ObjectProperty<LocalDate> publishedDateProperty() {
-        if (publishedDateProperty == null) {
-            publishedDateProperty = new SimpleObjectProperty<>(this, "publishedDate", publishedDate);
+        return properties().publishedDate;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    // A visible row binds all five columns at once, so the properties are created together
+    private Properties properties() {
+        if (properties == null) {
+            properties = new Properties(this);
+        }
+        return properties;
+    }
+
+    private static final class Properties {
+        final ObjectProperty<Long> id;
+        final StringProperty title;
+        final StringProperty author;
+        final StringProperty isbn;
+        final ObjectProperty<LocalDate> publishedDate;
+
+        Properties(Book book) {
+            id = new SimpleObjectProperty<>(book, "id", book.id);
+            title = new SimpleStringProperty(book, "title", book.title);
+            author = new SimpleStringProperty(book, "author", book.author);
+            isbn = new SimpleStringProperty(book, "isbn", book.isbn);
+            publishedDate = new SimpleObjectProperty<>(book, "publishedDate", book.publishedDate);
         }
-        return publishedDateProperty;
     }
 
     @Override
@@ -131,4 +161,4 @@ public class Book {
                 ", publishedDate=" + getPublishedDate() +
                 '}';
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,72 @@
+package com.library.frontend.model;
+
+import com.google.gson.annotations.Expose;
+
+import java.util.List;
+
+// Response of /api/books/batch: one result per operation, in request order
+public class BookBatchResult {
+
+    @Expose
+    private List<OperationResult> results;
+
+    public BookBatchResult() {}
+
+    public BookBatchResult(List<OperationResult> results) {
+        this.results = results;
+    }
+
+    public List<OperationResult> getResults() {
+        return results;
+    }
+
+    public static class OperationResult {
+
+        @Expose
+        private int index;
+        // CREATED, UPDATED or DELETED when applied; NOT_FOUND, INVALID or CONFLICT otherwise
+        @Expose
+        private String status;
+        @Expose
+        private Long id;
+        // Absent when the operation was replayed from its idempotency key
+        @Expose
+        private Book book;
+        @Expose
+        private String reason;
+
+        public OperationResult() {}
+
+        // A result the client makes up for an operation the server refused as part of a whole batch
+        public OperationResult(int index, String status, Long id, String reason) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+            this.reason = reason;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public Book getBook() {
+            return book;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public boolean isApplied() {
+            return "CREATED".equals(status) || "UPDATED".equals(status) || "DELETED".equals(status);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.library.frontend.model;
+
+import com.google.gson.annotations.Expose;
+
+import java.util.List;
+
+// Delta from /api/books/changes: books created or updated, and ids of deleted books
+public class BookChanges {
+
+    @Expose
+    private List<Book> upserts;
+    @Expose
+    private List<Long> deletions;
+    @Expose
+    private long nextSince;
+
+    public BookChanges() {}
+
+    public BookChanges(List<Book> upserts, List<Long> deletions, long nextSince) {
+        this.upserts = upserts;
+        this.deletions = deletions;
+        this.nextSince = nextSince;
+    }
+
+    public List<Book> getUpserts() {
+        return upserts;
+    }
+
+    public List<Long> getDeletions() {
+        return deletions;
+    }
+
+    public long getNextSince() {
+        return nextSince;
+    }
+}
@@ -0,0 +1,53 @@
+package com.library.frontend.model;
+
+import com.google.gson.annotations.Expose;
+
+// One entry of a batch write to /api/books/batch. expectedVersion makes an update or delete
+// conditional: the server refuses it (CONFLICT) if the book has changed since that version.
+public class BookOperation {
+
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+
+    @Expose
+    private Type type;
+    @Expose
+    private Long id;
+    @Expose
+    private Long expectedVersion;
+    @Expose
+    private String idempotencyKey;
+    @Expose
+    private Book book;
+
+    public BookOperation() {}
+
+    public BookOperation(Type type, Long id, Long expectedVersion, String idempotencyKey, Book book) {
+        this.type = type;
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+        this.idempotencyKey = idempotencyKey;
+        this.book = book;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+}
@@ -0,0 +1,54 @@
+package com.library.frontend.model;
+
+import com.google.gson.annotations.Expose;
+
+import java.util.List;
+
+// One page of the catalog in id order, as LazyBookList holds it
+public class BookPage {
+
+    @Expose
+    private List<Book> content;
+    @Expose
+    private long totalElements;
+    @Expose
+    private int number;
+    @Expose
+    private int size;
+
+    // Catalog version the page was read at; a refetch at the same version returns this copy
+    private transient String etag;
+
+    public BookPage() {}
+
+    public BookPage(List<Book> content, long totalElements, int number, int size) {
+        this.content = content;
+        this.totalElements = totalElements;
+        this.number = number;
+        this.size = size;
+    }
+
+    public List<Book> getContent() {
+        return content;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getETag() {
+        return etag;
+    }
+
+    public void setETag(String etag) {
+        this.etag = etag;
+    }
+}
@@ -0,0 +1,47 @@
+package com.library.frontend.model;
+
+import com.google.gson.annotations.Expose;
+
+import java.util.List;
+
+// One window of /api/books/scroll; pass nextCursor to read the next one
+public class BookSlice {
+
+    @Expose
+    private List<Book> content;
+    @Expose
+    private boolean hasNext;
+    @Expose
+    private String nextCursor;
+
+    // X-Changes-Since of the response: a /changes cursor taken before the window was read
+    private transient long changesSince;
+
+    public BookSlice() {}
+
+    public BookSlice(List<Book> content, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Book> getContent() {
+        return content;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public long getChangesSince() {
+        return changesSince;
+    }
+
+    public void setChangesSince(long changesSince) {
+        this.changesSince = changesSince;
+    }
+}
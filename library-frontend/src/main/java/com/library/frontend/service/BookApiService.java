@@ -2,124 +2,376 @@ package com.library.frontend.service;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 import com.library.frontend.model.Book;
+import com.library.frontend.model.BookBatchResult;
+import com.library.frontend.model.BookChanges;
+import com.library.frontend.model.BookOperation;
+import com.library.frontend.model.BookSlice;
+import com.library.frontend.util.BookCborDecoder;
+import com.library.frontend.util.BookTypeAdapter;
 import com.library.frontend.util.LocalDateAdapter;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Type;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 public class BookApiService {
 
     private static final String BASE_URL = "http://localhost:8080/api/books";
+    private static final Type BOOK_LIST = new TypeToken<List<Book>>(){}.getType();
+    private static final String CBOR = "application/cbor";
+    // Books per batch handed over by the streaming search; a screenful or two of rows
+    private static final int STREAM_BATCH_SIZE = 200;
+
+    // Streams the body, gunzipping it when the server compressed it
+    private static final HttpResponse.BodyHandler<InputStream> DECODED_BODY = info ->
+            info.headers().firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase).isPresent()
+                    ? HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(), BookApiService::gunzip)
+                    : HttpResponse.BodySubscribers.ofInputStream();
+
     private final HttpClient httpClient;
     private final Gson gson;
+    private final TypeAdapter<Book> bookAdapter;
+    private final BookCborDecoder cborDecoder = new BookCborDecoder();
+    // Ask for book lists, pages and deltas as CBOR instead of JSON
+    private final boolean preferCbor;
 
+    // Wire format from -Dlibrary.wire-format=cbor|json (default json)
     public BookApiService() {
-        this.httpClient = HttpClient.newHttpClient();
-        this.gson = new GsonBuilder()
+        this("cbor".equalsIgnoreCase(System.getProperty("library.wire-format")));
+    }
+
+    public BookApiService(boolean preferCbor) {
+        // HTTP/2 (h2c upgrade against the plain-HTTP backend) multiplexes concurrent requests
+        // over one connection; falls back to HTTP/1.1 if the server declines. Writes with a body
+        // go over HTTP/1.1 (see applyBatchAsync).
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .build();
+        this.gson = createGson();
+        this.bookAdapter = gson.getAdapter(Book.class);
+        this.preferCbor = preferCbor;
+    }
+
+    // Gson configured for the backend's Book JSON (also used by library-benchmarks).
+    // Books and dates go through streaming adapters instead of reflection and JsonElements.
+    public static Gson createGson() {
+        return new GsonBuilder()
                 .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+                .registerTypeAdapter(Book.class, new BookTypeAdapter())
                 .excludeFieldsWithoutExposeAnnotation()
                 .create();
     }
 
-    // Fetch all books
-    public List<Book> getAllBooks() throws IOException, InterruptedException {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL))
-                .GET()
+    // Search books - Bonus feature
+    public List<Book> searchBooks(String searchTerm) throws IOException, InterruptedException {
+        return await(searchBooksAsync(searchTerm));
+    }
+
+    // Non-blocking variants. The returned futures complete on an HttpClient thread, so UI code
+    // must hop back to the JavaFX thread before touching controls. Cancelling a future aborts
+    // its HTTP exchange.
+
+    // Streaming variant of searchBooks. Books are handed to onBatch in batches as the body is
+    // parsed, so the first rows can be shown while the rest are still arriving and the whole
+    // list is never held here. onBatch runs on an HttpClient thread. The future completes with
+    // the number of books; cancelling it also stops the parse.
+    public CompletableFuture<Integer> searchBooksAsync(String searchTerm, Consumer<List<Book>> onBatch) {
+        HttpRequest request = negotiate(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/search?q=" + URLEncoder.encode(searchTerm, StandardCharsets.UTF_8)))
+                .GET())
                 .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        return streamBooksAsync(request, "Failed to search books.", onBatch);
+    }
 
-        if (response.statusCode() == 200) {
-            return gson.fromJson(response.body(), new TypeToken<List<Book>>(){}.getType());
-        } else if (response.statusCode() == 204) {
-            return new ArrayList<>();
-        } else {
-            throw new IOException("Failed to fetch books. Status code: " + response.statusCode());
-        }
+    // Books written and ids deleted since the cursor; 0 returns the whole catalog
+    public BookChanges getChanges(long since) throws IOException, InterruptedException {
+        return await(getChangesAsync(since));
+    }
+
+    // The window of up to `size` books in id order after the cursor (null for the first)
+    public BookSlice scrollBooks(String cursor, int size) throws IOException, InterruptedException {
+        return await(scrollBooksAsync(cursor, size));
     }
 
-    // Add a new book
-    public Book addBook(Book book) throws IOException, InterruptedException {
-        String jsonBody = gson.toJson(book);
+    // Send queued writes as one batch
+    public BookBatchResult applyBatch(List<BookOperation> operations) throws IOException, InterruptedException {
+        return await(applyBatchAsync(operations));
+    }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+    // Fetch the changes since a cursor asynchronously
+    public CompletableFuture<BookChanges> getChangesAsync(long since) {
+        HttpRequest request = negotiate(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/changes?since=" + since))
+                .GET())
                 .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        return sendAsync(request, response -> {
+            if (response.statusCode() == 200) {
+                return readChanges(response);
+            } else {
+                throw new HttpStatusException("Failed to fetch changes.", response.statusCode());
+            }
+        });
+    }
 
-        if (response.statusCode() == 201) {
-            return gson.fromJson(response.body(), Book.class);
-        } else {
-            throw new IOException("Failed to add book. Status code: " + response.statusCode());
-        }
+    // Read one window of the catalog in id order asynchronously
+    public CompletableFuture<BookSlice> scrollBooksAsync(String cursor, int size) {
+        String query = "?sortBy=id&size=" + size
+                + (cursor != null ? "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8) : "");
+        HttpRequest request = negotiate(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/scroll" + query))
+                .GET())
+                .build();
+
+        return sendAsync(request, response -> {
+            if (response.statusCode() == 200) {
+                BookSlice slice = isCbor(response)
+                        ? cborDecoder.readSlice(response.body())
+                        : gson.fromJson(reader(response.body()), BookSlice.class);
+                slice.setChangesSince(response.headers().firstValueAsLong("X-Changes-Since").orElse(0));
+                return slice;
+            } else {
+                throw new HttpStatusException("Failed to scroll books.", response.statusCode());
+            }
+        });
     }
 
-    // Update an existing book
-    public Book updateBook(Long id, Book book) throws IOException, InterruptedException {
-        String jsonBody = gson.toJson(book);
+    // Apply create/update/delete operations in one server transaction asynchronously.
+    // Operations carry idempotency keys, so a batch whose response was lost can be sent again.
+    public CompletableFuture<BookBatchResult> applyBatchAsync(List<BookOperation> operations) {
+        String jsonBody = gson.toJson(operations);
 
+        // HTTP/1.1: on a fresh connection an HTTP/2 request is sent as an h2c upgrade, and Tomcat
+        // answers 413 to upgrades carrying a body over maxSavePostSize (4 KB); a full batch is larger
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/" + id))
+                .uri(URI.create(BASE_URL + "/batch"))
+                .version(HttpClient.Version.HTTP_1_1)
                 .header("Content-Type", "application/json")
-                .PUT(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                .build();
+
+        return sendAsync(request, response -> {
+            if (response.statusCode() == 200) {
+                return gson.fromJson(reader(response.body()), BookBatchResult.class);
+            } else {
+                throw new HttpStatusException("Failed to apply batch.", response.statusCode());
+            }
+        });
+    }
+
+    // Search books asynchronously
+    public CompletableFuture<List<Book>> searchBooksAsync(String searchTerm) {
+        HttpRequest request = negotiate(HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/search?q=" + URLEncoder.encode(searchTerm, StandardCharsets.UTF_8)))
+                .GET())
                 .build();
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        return sendAsync(request, response -> {
+            if (response.statusCode() == 200) {
+                return readBooks(response);
+            } else if (response.statusCode() == 204) {
+                return new ArrayList<>();
+            } else {
+                throw new IOException("Failed to search books. Status code: " + response.statusCode());
+            }
+        });
+    }
 
-        if (response.statusCode() == 200) {
-            return gson.fromJson(response.body(), Book.class);
-        } else if (response.statusCode() == 404) {
-            throw new IOException("Book not found with id: " + id);
-        } else {
-            throw new IOException("Failed to update book. Status code: " + response.statusCode());
-        }
+    // Subscribe to changes pushed by the server; close the returned stream to unsubscribe
+    public BookChangeStream openChangeStream(BookChangeStream.Listener listener) {
+        BookChangeStream stream = new BookChangeStream(httpClient, gson, URI.create(BASE_URL + "/stream"), listener);
+        stream.start();
+        return stream;
     }
 
-    // Delete a book
-    public void deleteBook(Long id) throws IOException, InterruptedException {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/" + id))
-                .DELETE()
+    // Turns a response into a result; the body stream is closed afterwards
+    @FunctionalInterface
+    private interface ResponseHandler<T> {
+        T handle(HttpResponse<InputStream> response) throws IOException;
+    }
+
+    // Send without blocking and decode the body as it streams in, instead of buffering it as a String
+    private <T> CompletableFuture<T> sendAsync(HttpRequest request, ResponseHandler<T> handler) {
+        HttpRequest compressible = HttpRequest.newBuilder(request, (name, value) -> true)
+                .header("Accept-Encoding", "gzip")
                 .build();
+        CompletableFuture<HttpResponse<InputStream>> exchange = httpClient.sendAsync(compressible, DECODED_BODY);
+
+        CompletableFuture<T> result = exchange.thenApply(response -> {
+            try (InputStream body = response.body()) {
+                return handler.handle(response);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+
+        // Cancelling a dependent future does not reach the exchange by itself
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    private CompletableFuture<Integer> streamBooksAsync(HttpRequest request, String failure, Consumer<List<Book>> onBatch) {
+        CompletableFuture<Integer> streamed = new CompletableFuture<>();
+        // Throwing out of the parse loop closes the body, which aborts the exchange
+        Consumer<List<Book>> unlessCancelled = batch -> {
+            if (streamed.isCancelled()) {
+                throw new CancellationException();
+            }
+            onBatch.accept(batch);
+        };
 
-        if (response.statusCode() != 204) {
-            if (response.statusCode() == 404) {
-                throw new IOException("Book not found with id: " + id);
+        CompletableFuture<Integer> exchange = sendAsync(request, response -> {
+            if (response.statusCode() == 200) {
+                return streamBooks(response, unlessCancelled);
+            } else if (response.statusCode() == 204) {
+                return 0;
+            } else {
+                throw new IOException(failure + " Status code: " + response.statusCode());
+            }
+        });
+        exchange.whenComplete((count, error) -> {
+            if (error != null) {
+                streamed.completeExceptionally(error);
             } else {
-                throw new IOException("Failed to delete book. Status code: " + response.statusCode());
+                streamed.complete(count);
             }
+        });
+        streamed.whenComplete((count, error) -> {
+            if (streamed.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return streamed;
+    }
+
+    // Parse a List<Book> body one element at a time
+    private int streamBooks(HttpResponse<InputStream> response, Consumer<List<Book>> onBatch) throws IOException {
+        if (isCbor(response)) {
+            return cborDecoder.readBooks(response.body(), STREAM_BATCH_SIZE, onBatch);
+        }
+        try (JsonReader json = gson.newJsonReader(reader(response.body()))) {
+            json.beginArray();
+            int count = 0;
+            List<Book> batch = new ArrayList<>(STREAM_BATCH_SIZE);
+            while (json.hasNext()) {
+                batch.add(bookAdapter.read(json));
+                if (batch.size() == STREAM_BATCH_SIZE) {
+                    onBatch.accept(batch);
+                    count += batch.size();
+                    batch = new ArrayList<>(STREAM_BATCH_SIZE);
+                }
+            }
+            json.endArray();
+            if (!batch.isEmpty()) {
+                onBatch.accept(batch);
+                count += batch.size();
+            }
+            return count;
         }
     }
 
-    // Search books - Bonus feature
-    public List<Book> searchBooks(String searchTerm) throws IOException, InterruptedException {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URL + "/search?q=" + searchTerm))
-                .GET()
-                .build();
+    private BookChanges readChanges(HttpResponse<InputStream> response) throws IOException {
+        return isCbor(response)
+                ? cborDecoder.readChanges(response.body())
+                : gson.fromJson(reader(response.body()), BookChanges.class);
+    }
+
+    private List<Book> readBooks(HttpResponse<InputStream> response) throws IOException {
+        return isCbor(response)
+                ? cborDecoder.readBooks(response.body())
+                : gson.fromJson(reader(response.body()), BOOK_LIST);
+    }
+
+    // Accept CBOR for read endpoints when configured; the server still falls back to JSON
+    private HttpRequest.Builder negotiate(HttpRequest.Builder builder) {
+        if (preferCbor) {
+            builder.header("Accept", CBOR + ", application/json;q=0.9");
+        }
+        return builder;
+    }
+
+    private static boolean isCbor(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Type")
+                .map(type -> type.startsWith(CBOR))
+                .orElse(false);
+    }
+
+    // GZIPInputStream reads the gzip header in its constructor, which must not happen on the
+    // HttpClient thread that hands over the stream, so it is created on the first read
+    private static InputStream gunzip(InputStream compressed) {
+        return new InputStream() {
+            private InputStream decoded;
+
+            private InputStream decoded() throws IOException {
+                if (decoded == null) {
+                    decoded = new GZIPInputStream(compressed, 8192);
+                }
+                return decoded;
+            }
+
+            @Override
+            public int read() throws IOException {
+                return decoded().read();
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                return decoded().read(buffer, offset, length);
+            }
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            @Override
+            public void close() throws IOException {
+                if (decoded != null) {
+                    decoded.close();
+                } else {
+                    compressed.close();
+                }
+            }
+        };
+    }
 
-        if (response.statusCode() == 200) {
-            return gson.fromJson(response.body(), new TypeToken<List<Book>>(){}.getType());
-        } else if (response.statusCode() == 204) {
-            return new ArrayList<>();
-        } else {
-            throw new IOException("Failed to search books. Status code: " + response.statusCode());
+    private static Reader reader(InputStream body) {
+        return new InputStreamReader(body, StandardCharsets.UTF_8);
+    }
+
+    // Block on an async call, unwrapping its failure into the checked exceptions of the sync API
+    private static <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
         }
     }
-}
\ No newline at end of file
+}
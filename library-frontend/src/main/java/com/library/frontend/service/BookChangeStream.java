@@ -0,0 +1,134 @@
+package com.library.frontend.service;
+
+import com.google.gson.Gson;
+import com.library.frontend.model.BookChanges;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Subscription to /api/books/stream (Server-Sent Events).
+// Reads on a daemon thread and reconnects with exponential backoff when the connection drops.
+// Listener callbacks run on that thread, so UI code must hop to the JavaFX thread.
+public class BookChangeStream implements AutoCloseable {
+
+    public interface Listener {
+        // A batch of committed changes
+        void onChanges(BookChanges changes);
+
+        // Changes may have been missed: a (re)connect, or the server dropped our backlog
+        void onResync();
+    }
+
+    private static final long INITIAL_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final HttpClient httpClient;
+    private final Gson gson;
+    private final URI uri;
+    private final Listener listener;
+    private final Thread reader;
+
+    private volatile boolean closed;
+    // Body of the current connection; closing it aborts the read
+    private volatile Stream<String> lines;
+
+    BookChangeStream(HttpClient httpClient, Gson gson, URI uri, Listener listener) {
+        this.httpClient = httpClient;
+        this.gson = gson;
+        this.uri = uri;
+        this.listener = listener;
+        this.reader = new Thread(this::run, "book-change-stream");
+        this.reader.setDaemon(true);
+    }
+
+    void start() {
+        reader.start();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Stream<String> current = lines;
+        if (current != null) {
+            current.close();
+        }
+        reader.interrupt();
+    }
+
+    private void run() {
+        long backoff = INITIAL_BACKOFF_MS;
+        while (!closed) {
+            try {
+                HttpRequest request = HttpRequest.newBuilder()
+                        .uri(uri)
+                        .header("Accept", "text/event-stream")
+                        .GET()
+                        .build();
+                HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+                try (Stream<String> body = response.body()) {
+                    if (response.statusCode() == 200) {
+                        lines = body;
+                        backoff = INITIAL_BACKOFF_MS;
+                        readEvents(body.iterator());
+                    }
+                }
+            } catch (IOException | UncheckedIOException e) {
+                // Connection lost or refused; retry below
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lines = null;
+            }
+
+            if (closed) {
+                return;
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    // Minimal text/event-stream parser: "event:" and "data:" fields, dispatched on a blank line
+    private void readEvents(Iterator<String> iterator) {
+        String event = "message";
+        StringBuilder data = new StringBuilder();
+        while (!closed && iterator.hasNext()) {
+            String line = iterator.next();
+            if (line.isEmpty()) {
+                dispatch(event, data.toString());
+                event = "message";
+                data.setLength(0);
+            } else if (line.startsWith("event:")) {
+                event = fieldValue(line, "event:".length());
+            } else if (line.startsWith("data:")) {
+                if (data.length() > 0) {
+                    data.append('\n');
+                }
+                data.append(fieldValue(line, "data:".length()));
+            }
+            // Comments (":keepalive") and unknown fields are ignored
+        }
+    }
+
+    private void dispatch(String event, String data) {
+        switch (event) {
+            case "changes" -> listener.onChanges(gson.fromJson(data, BookChanges.class));
+            case "ready", "resync" -> listener.onResync();
+            default -> { }
+        }
+    }
+
+    private static String fieldValue(String line, int start) {
+        return line.startsWith(" ", start) ? line.substring(start + 1) : line.substring(start);
+    }
+}
@@ -0,0 +1,360 @@
+package com.library.frontend.service;
+
+import com.library.frontend.data.LocalCatalogStore;
+import com.library.frontend.model.Book;
+import com.library.frontend.model.BookBatchResult;
+import com.library.frontend.model.BookChanges;
+import com.library.frontend.model.BookOperation;
+import com.library.frontend.model.BookPage;
+import com.library.frontend.model.BookSlice;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+// Keeps the local replica in step with the server in the background. Each sync first replays
+// queued local writes through /api/books/batch, then pulls /api/books/changes since the
+// replica's cursor; a replay that fails does not hold back the pull. Without a cursor (first
+// start, or after a resync) the catalog is copied through /api/books/scroll instead, one
+// committed window at a time. A sync runs at startup, after each local write, and whenever
+// the change stream (re)connects or reports that it dropped changes; the deltas it pushes in
+// between are applied as they arrive. While the server is unreachable, or a batch failed in a
+// way that may pass, it is retried with backoff.
+// Syncs run on one daemon thread; replica reads and local writes run on another pool, so the
+// UI never waits for the network. Listener callbacks come from those threads.
+public class CatalogSync implements AutoCloseable {
+
+    public interface Listener {
+        // The replica changed; refresh what is on screen
+        void onCatalogChanged();
+
+        // Whether the server is reachable, and how many local writes still wait for it
+        void onStatus(boolean online, int pendingWrites);
+
+        // Something the user should hear about, e.g. queued writes the server refused
+        void onProblem(String message);
+    }
+
+    // Writes per /api/books/batch request
+    private static final int BATCH_SIZE = 100;
+    // Books per /api/books/scroll window while copying the catalog
+    private static final int FILL_WINDOW = 1_000;
+    private static final long INITIAL_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final BookApiService apiService;
+    private final LocalCatalogStore store;
+    private final Listener listener;
+    private final ScheduledExecutorService syncThread = Executors.newSingleThreadScheduledExecutor(daemon("catalog-sync"));
+    private final ExecutorService storeThreads = Executors.newFixedThreadPool(2, daemon("catalog-store"));
+
+    private BookChangeStream changeStream;
+    private volatile boolean online;
+    // Guarded by this: a sync is queued; the pending retry after a failure
+    private boolean queued;
+    private ScheduledFuture<?> retry;
+    // Bumped when the change stream (re)connects or asks for a resync: the pushed deltas are
+    // complete only from the pull that follows
+    private volatile long streamEpoch;
+    // Only touched on the sync thread: the stream epoch the last completed pull started in;
+    // the fill fields let a copy cut short resume
+    private long pulledEpoch = -1;
+    private long backoff = INITIAL_BACKOFF_MS;
+    private String fillCursor;
+    private long fillAfterId;
+    private long fillSince;
+
+    public CatalogSync(BookApiService apiService, LocalCatalogStore store, Listener listener) {
+        this.apiService = apiService;
+        this.store = store;
+        this.listener = listener;
+    }
+
+    // Start syncing; the replica can be read before the first sync completes
+    public void start() {
+        changeStream = apiService.openChangeStream(new BookChangeStream.Listener() {
+            @Override
+            public void onChanges(BookChanges changes) {
+                long epoch = streamEpoch;
+                syncThread.execute(() -> applyPushed(changes, epoch));
+            }
+
+            @Override
+            public void onResync() {
+                streamEpoch++;
+                requestSync();
+            }
+        });
+        requestSync();
+    }
+
+    public boolean isOnline() {
+        return online;
+    }
+
+    // Page of the replica, for LazyBookList
+    public CompletableFuture<BookPage> page(int page, int size, BookPage cached) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return store.page(page, size, cached);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, storeThreads);
+    }
+
+    // Substring search over the replica, for when the server cannot be asked
+    public CompletableFuture<List<Book>> search(String term) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return store.search(term);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, storeThreads);
+    }
+
+    // Apply a write locally and queue it for the server. Completes with the book as stored in
+    // the replica as soon as it is there, whether or not the server is reachable.
+    public CompletableFuture<Book> submit(BookOperation.Type type, Book book) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Book stored = store.enqueue(type, book);
+                publishStatus();
+                requestSync();
+                return stored;
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, storeThreads);
+    }
+
+    // Download the whole catalog again, replacing the replica (except books with queued writes)
+    public void resyncAll() {
+        syncThread.execute(() -> {
+            try {
+                restartFill();
+                requestSync();
+            } catch (SQLException e) {
+                listener.onProblem("Local catalog error: " + e.getMessage());
+            }
+        });
+    }
+
+    // Run a sync soon; requests made while one is queued are folded into it
+    public void requestSync() {
+        synchronized (this) {
+            if (queued) {
+                return;
+            }
+            queued = true;
+            if (retry != null) {
+                retry.cancel(false);
+                retry = null;
+            }
+        }
+        syncThread.execute(this::sync);
+    }
+
+    @Override
+    public void close() {
+        if (changeStream != null) {
+            changeStream.close();
+        }
+        syncThread.shutdownNow();
+        storeThreads.shutdownNow();
+        try {
+            syncThread.awaitTermination(5, TimeUnit.SECONDS);
+            storeThreads.awaitTermination(5, TimeUnit.SECONDS);
+            store.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            // Closing anyway; H2 recovers the file on the next open
+        }
+    }
+
+    private void sync() {
+        synchronized (this) {
+            queued = false;
+        }
+        long epoch = streamEpoch;
+        try {
+            IOException replayFailure = null;
+            try {
+                replayWrites();
+            } catch (IOException e) {
+                // Pull anyway; if the server is down the pull fails too
+                replayFailure = e;
+            }
+            boolean changed = pullChanges();
+            pulledEpoch = epoch;
+            online = true;
+            if (changed) {
+                listener.onCatalogChanged();
+            }
+            if (replayFailure == null) {
+                backoff = INITIAL_BACKOFF_MS;
+            } else {
+                scheduleRetry();
+            }
+        } catch (IOException e) {
+            online = false;
+            scheduleRetry();
+        } catch (SQLException e) {
+            listener.onProblem("Local catalog error: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        publishStatus();
+    }
+
+    // Send the queued writes in batches, oldest first. Each settled batch changes the replica
+    // (new books get their real ids), so it is reported right away. When the server refuses a
+    // whole batch with a status that resending cannot fix, the writes are sent one at a time
+    // and the one it still refuses is set aside as a rejection, so it cannot block the queue.
+    private void replayWrites() throws IOException, InterruptedException, SQLException {
+        List<String> rejections = new ArrayList<>();
+        List<LocalCatalogStore.PendingWrite> batch;
+        int batchSize = BATCH_SIZE;
+        while (!(batch = store.nextBatch(batchSize)).isEmpty()) {
+            List<BookOperation> operations = new ArrayList<>(batch.size());
+            for (LocalCatalogStore.PendingWrite write : batch) {
+                Long id = write.type() == BookOperation.Type.CREATE ? null : write.bookId();
+                Book book = write.type() == BookOperation.Type.DELETE ? null : new Book(null,
+                        write.book().getTitle(), write.book().getAuthor(), write.book().getIsbn(),
+                        write.book().getPublishedDate());
+                operations.add(new BookOperation(write.type(), id, write.expectedVersion(), write.idempotencyKey(), book));
+            }
+
+            List<BookBatchResult.OperationResult> results;
+            try {
+                results = apiService.applyBatch(operations).getResults();
+            } catch (HttpStatusException e) {
+                if (!e.isPermanent()) {
+                    throw e;
+                }
+                if (batch.size() > 1) {
+                    batchSize = 1;
+                    continue;
+                }
+                results = List.of(new BookBatchResult.OperationResult(0, "INVALID", operations.get(0).getId(),
+                        "refused with status " + e.getStatusCode()));
+            }
+            if (results == null || results.size() != batch.size()) {
+                throw new IOException("Batch response does not match the request");
+            }
+            LocalCatalogStore.ReplayOutcome outcome = store.complete(batch, results);
+            rejections.addAll(outcome.rejections());
+            listener.onCatalogChanged();
+            publishStatus();
+        }
+
+        if (!rejections.isEmpty()) {
+            // The replica still shows the refused edits; replace it with the server's catalog
+            restartFill();
+            listener.onProblem("The server refused " + rejections.size() + " offline change(s):\n"
+                    + String.join("\n", rejections));
+        }
+    }
+
+    // Apply a delta from the change stream. It moves the cursor only if a pull completed since
+    // the stream last (re)connected, so everything before the delta is in the replica already;
+    // otherwise the pull that is on its way fetches from the old cursor.
+    private void applyPushed(BookChanges changes, long epoch) {
+        try {
+            store.applyChanges(changes, epoch == pulledEpoch);
+        } catch (SQLException e) {
+            listener.onProblem("Local catalog error: " + e.getMessage());
+            return;
+        }
+        if ((changes.getUpserts() != null && !changes.getUpserts().isEmpty())
+                || (changes.getDeletions() != null && !changes.getDeletions().isEmpty())) {
+            listener.onCatalogChanged();
+        }
+    }
+
+    // Apply the server's changes since the replica's cursor, or copy the catalog when there is
+    // none. Returns whether anything changed.
+    private boolean pullChanges() throws IOException, InterruptedException, SQLException {
+        long since = store.since();
+        boolean filled = since == 0;
+        if (filled) {
+            fill();
+            since = store.since();
+        }
+        BookChanges changes = apiService.getChanges(since);
+        store.applyChanges(changes, true);
+        return filled
+                || (changes.getUpserts() != null && !changes.getUpserts().isEmpty())
+                || (changes.getDeletions() != null && !changes.getDeletions().isEmpty());
+    }
+
+    // Copy the catalog window by window in id order, each committed and shown as it arrives,
+    // then follow /changes from the cursor the first window came with. Writes made during the
+    // copy are at or after that cursor, so the first pull catches up on them.
+    private void fill() throws IOException, InterruptedException, SQLException {
+        BookSlice slice;
+        do {
+            slice = apiService.scrollBooks(fillCursor, FILL_WINDOW);
+            if (fillCursor == null) {
+                if (slice.getChangesSince() <= 0) {
+                    throw new IOException("Scroll response carries no X-Changes-Since");
+                }
+                fillAfterId = 0;
+                fillSince = slice.getChangesSince();
+            }
+            List<Book> books = slice.getContent() != null ? slice.getContent() : List.of();
+            store.applyFill(fillAfterId, books, !slice.isHasNext(), fillSince);
+            if (!books.isEmpty()) {
+                fillAfterId = books.get(books.size() - 1).getId();
+            }
+            fillCursor = slice.getNextCursor();
+            listener.onCatalogChanged();
+        } while (slice.isHasNext());
+        fillCursor = null;
+    }
+
+    // Forget the cursor and any copy in progress, so the next sync copies the catalog afresh
+    private void restartFill() throws SQLException {
+        store.resetSince();
+        fillCursor = null;
+        pulledEpoch = -1;
+    }
+
+    private void scheduleRetry() {
+        long delay = backoff;
+        backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        synchronized (this) {
+            if (!queued) {
+                retry = syncThread.schedule(this::requestSync, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void publishStatus() {
+        try {
+            listener.onStatus(online, store.pendingCount());
+        } catch (SQLException e) {
+            listener.onProblem("Local catalog error: " + e.getMessage());
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.library.frontend.service;
+
+import java.io.IOException;
+
+// The server answered, but not with success. Unlike a plain IOException the server was
+// reachable, and whether to retry depends on the status.
+public class HttpStatusException extends IOException {
+
+    private final int statusCode;
+
+    public HttpStatusException(String message, int statusCode) {
+        super(message + " Status code: " + statusCode);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    // A 4xx that sending the same request again cannot fix. 408, 409 and 429 are about timing.
+    public boolean isPermanent() {
+        return statusCode >= 400 && statusCode < 500
+                && statusCode != 408 && statusCode != 409 && statusCode != 429;
+    }
+}
@@ -0,0 +1,169 @@
+package com.library.frontend.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.library.frontend.model.Book;
+import com.library.frontend.model.BookChanges;
+import com.library.frontend.model.BookSlice;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Decodes the backend's application/cbor responses with Jackson's streaming parser.
+// Field names are matched directly and dates arrive as [year, month, day], so no text is parsed
+// beyond the string fields themselves. Unknown fields are skipped.
+public class BookCborDecoder {
+
+    private final JsonFactory factory = new CBORFactory();
+
+    // A List<Book> body (/api/books, /search)
+    public List<Book> readBooks(InputStream body) throws IOException {
+        try (JsonParser parser = factory.createParser(body)) {
+            parser.nextToken();
+            return readBookArray(parser);
+        }
+    }
+
+    // A List<Book> body handed over in batches of up to batchSize as it is decoded, so the
+    // whole list is never held here. Returns the number of books.
+    public int readBooks(InputStream body, int batchSize, Consumer<List<Book>> onBatch) throws IOException {
+        try (JsonParser parser = factory.createParser(body)) {
+            expect(parser.nextToken(), JsonToken.START_ARRAY);
+            int count = 0;
+            List<Book> batch = new ArrayList<>(batchSize);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                batch.add(readBook(parser));
+                if (batch.size() == batchSize) {
+                    onBatch.accept(batch);
+                    count += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                onBatch.accept(batch);
+                count += batch.size();
+            }
+            return count;
+        }
+    }
+
+    // A BookChanges body (/changes)
+    public BookChanges readChanges(InputStream body) throws IOException {
+        try (JsonParser parser = factory.createParser(body)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            List<Book> upserts = new ArrayList<>();
+            List<Long> deletions = new ArrayList<>();
+            long nextSince = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "upserts" -> upserts = readBookArray(parser);
+                    case "deletions" -> {
+                        expect(value, JsonToken.START_ARRAY);
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            deletions.add(parser.getLongValue());
+                        }
+                    }
+                    case "nextSince" -> nextSince = parser.getLongValue();
+                    default -> skip(parser, value);
+                }
+            }
+            return new BookChanges(upserts, deletions, nextSince);
+        }
+    }
+
+    // A BookSlice body (/scroll)
+    public BookSlice readSlice(InputStream body) throws IOException {
+        try (JsonParser parser = factory.createParser(body)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            List<Book> content = new ArrayList<>();
+            boolean hasNext = false;
+            String nextCursor = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "content" -> content = readBookArray(parser);
+                    case "hasNext" -> hasNext = value == JsonToken.VALUE_TRUE;
+                    case "nextCursor" -> nextCursor = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                    default -> skip(parser, value);
+                }
+            }
+            return new BookSlice(content, hasNext, nextCursor);
+        }
+    }
+
+    // Parser positioned on START_ARRAY
+    private static List<Book> readBookArray(JsonParser parser) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        List<Book> books = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            books.add(readBook(parser));
+        }
+        return books;
+    }
+
+    // Parser positioned on START_OBJECT
+    private static Book readBook(JsonParser parser) throws IOException {
+        Long id = null;
+        String title = null;
+        String author = null;
+        String isbn = null;
+        LocalDate publishedDate = null;
+        Long version = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "id" -> id = parser.getLongValue();
+                case "title" -> title = parser.getText();
+                case "author" -> author = parser.getText();
+                case "isbn" -> isbn = parser.getText();
+                case "publishedDate" -> publishedDate = readDate(parser, value);
+                case "version" -> version = parser.getLongValue();
+                default -> skip(parser, value);
+            }
+        }
+        Book book = new Book(id, title, author, isbn, publishedDate);
+        book.setVersion(version);
+        return book;
+    }
+
+    // [year, month, day], or an ISO string from a server that writes dates as text
+    private static LocalDate readDate(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return LocalDates.parse(parser.getText());
+        }
+        expect(value, JsonToken.START_ARRAY);
+        parser.nextToken();
+        int year = parser.getIntValue();
+        parser.nextToken();
+        int month = parser.getIntValue();
+        parser.nextToken();
+        int day = parser.getIntValue();
+        expect(parser.nextToken(), JsonToken.END_ARRAY);
+        return LocalDate.of(year, month, day);
+    }
+
+    private static void skip(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+        }
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Malformed CBOR: expected " + expected + " but found " + actual);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.library.frontend.util;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.library.frontend.model.Book;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+// Book JSON read and written directly on the token stream: no reflection, and no JsonElement
+// for the date. Reads the same fields as Book's @Expose annotations; other fields the backend
+// sends (lastModified) are skipped. The version is not written: writes carry the version they
+// expect on the operation, not in the book.
+public class BookTypeAdapter extends TypeAdapter<Book> {
+
+    @Override
+    public void write(JsonWriter out, Book book) throws IOException {
+        if (book == null) {
+            out.nullValue();
+            return;
+        }
+        LocalDate publishedDate = book.getPublishedDate();
+        out.beginObject();
+        out.name("id").value(book.getId());
+        out.name("title").value(book.getTitle());
+        out.name("author").value(book.getAuthor());
+        out.name("isbn").value(book.getIsbn());
+        out.name("publishedDate").value(publishedDate != null ? publishedDate.toString() : null);
+        out.endObject();
+    }
+
+    @Override
+    public Book read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        // Same defaults as Book's no-argument constructor, for fields the body leaves out
+        Long id = null;
+        String title = "";
+        String author = "";
+        String isbn = "";
+        LocalDate publishedDate = null;
+        Long version = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id" -> id = consumeNull(in) ? null : in.nextLong();
+                case "title" -> title = consumeNull(in) ? null : in.nextString();
+                case "author" -> author = consumeNull(in) ? null : in.nextString();
+                case "isbn" -> isbn = consumeNull(in) ? null : in.nextString();
+                case "publishedDate" -> publishedDate = consumeNull(in) ? null : LocalDates.parse(in.nextString());
+                case "version" -> version = consumeNull(in) ? null : in.nextLong();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        Book book = new Book(id, title, author, isbn, publishedDate);
+        book.setVersion(version);
+        return book;
+    }
+
+    private static boolean consumeNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+}
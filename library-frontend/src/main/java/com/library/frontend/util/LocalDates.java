@@ -0,0 +1,41 @@
+package com.library.frontend.util;
+
+import java.time.LocalDate;
+
+// Parses the yyyy-MM-dd dates the backend sends straight from the characters. LocalDate.parse
+// goes through DateTimeFormatter, which allocates a parse context and a field map per call;
+// this skips both. The callers still get the text as a String from the Gson or Jackson
+// reader, which offer no way to read a value's characters without one, so a date costs
+// that String plus the LocalDate. Any other shape falls back to LocalDate.parse.
+public final class LocalDates {
+
+    private LocalDates() {
+    }
+
+    public static LocalDate parse(String text) {
+        if (text.length() != 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return LocalDate.parse(text);
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return LocalDate.parse(text);
+        }
+        // Throws DateTimeException for out-of-range fields, as LocalDate.parse would
+        return LocalDate.of(year, month, day);
+    }
+
+    // The decimal value of text[from, to), or -1 if it contains a non-digit
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
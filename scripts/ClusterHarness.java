@@ -0,0 +1,294 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Starts several backend nodes on the cluster profile against one shared H2 database and checks
+// that their near-caches stay coherent and that reads scale with the node count.
+// Runs with no build step (Java 17+) once the backend jar is built:
+//
+//   mvn -pl library-backend package
+//   java scripts/ClusterHarness.java library-backend/target/library-backend-1.0.0-exec.jar 3 10 64
+//
+// Arguments: <exec jar> [nodes=3] [seconds per throughput run=10] [concurrency=64].
+// Nodes listen on 8081, 8082, ... and log to a temporary directory, which is printed.
+//
+// Coherence: each round warms every node's cache with a book, then updates (or deletes) it on
+// one node and waits until every node serves the new version by id and through search. The
+// harness fails if a node has not converged within CONVERGENCE_TIMEOUT.
+// Throughput: closed-loop GET /api/books/{id} spread over the first 1..N nodes. All nodes share
+// this machine's CPUs, so the scaling measured here is a lower bound.
+public class ClusterHarness {
+
+    private static final int BASE_PORT = 8081;
+    private static final int SEED_BOOKS = 5000;
+    private static final int BATCH_SIZE = 1000;
+    private static final int COHERENCE_ROUNDS = 50;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final Duration CONVERGENCE_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+    private static final Pattern VERSION = Pattern.compile("\"version\":(\\d+)");
+    private static final Pattern ISBN = Pattern.compile("\"isbn\":\"([^\"]*)\"");
+
+    private static final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java ClusterHarness.java <exec jar> [nodes] [seconds] [concurrency]");
+            System.exit(1);
+        }
+        Path jar = Path.of(args[0]).toAbsolutePath();
+        int nodes = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+
+        Path dir = Files.createTempDirectory("library-cluster");
+        System.out.println("Data and logs in " + dir);
+        List<Process> processes = Collections.synchronizedList(new ArrayList<>());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> processes.forEach(Process::destroy)));
+
+        // The first node creates the database and runs the migrations; the rest attach to it
+        processes.add(startNode(jar, dir, 0));
+        awaitHealthy(0);
+        for (int i = 1; i < nodes; i++) {
+            processes.add(startNode(jar, dir, i));
+        }
+        for (int i = 1; i < nodes; i++) {
+            awaitHealthy(i);
+        }
+        System.out.println(nodes + " nodes up");
+
+        List<Long> ids = seed();
+        System.out.println("Seeded " + ids.size() + " books");
+
+        boolean coherent = checkCoherence(nodes, ids);
+        measureThroughput(nodes, ids, seconds, concurrency);
+
+        processes.forEach(Process::destroy);
+        System.exit(coherent ? 0 : 1);
+    }
+
+    private static Process startNode(Path jar, Path dir, int node) throws IOException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        return new ProcessBuilder(java, "-jar", jar.toString(),
+                "--spring.profiles.active=cluster",
+                "--server.port=" + port(node),
+                "--library.data-dir=" + dir,
+                "--library.cluster.node-id=node-" + node,
+                "--logging.level.com.library.backend=INFO")
+                .redirectErrorStream(true)
+                .redirectOutput(dir.resolve("node-" + node + ".log").toFile())
+                .start();
+    }
+
+    private static void awaitHealthy(int node) throws Exception {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                if (get(node, "/actuator/health").statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Node " + node + " did not start; see its log");
+    }
+
+    // Create the books through node 0's batch endpoint and return their ids
+    private static List<Long> seed() throws Exception {
+        for (int start = 0; start < SEED_BOOKS; start += BATCH_SIZE) {
+            StringBuilder body = new StringBuilder("[");
+            for (int i = start; i < Math.min(start + BATCH_SIZE, SEED_BOOKS); i++) {
+                if (i > start) {
+                    body.append(',');
+                }
+                body.append("{\"type\":\"CREATE\",\"book\":{\"title\":\"Harness Book ").append(i)
+                        .append("\",\"author\":\"Author ").append(i % 100)
+                        .append("\",\"isbn\":\"HARNESS-").append(i)
+                        .append("\",\"publishedDate\":\"2000-01-01\"}}");
+            }
+            // HTTP/1.1: Tomcat answers 413 to an h2c upgrade whose body is over 4 KB
+            HttpResponse<String> response = send(0, HttpRequest.newBuilder()
+                    .uri(uri(0, "/api/books/batch"))
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.append(']').toString())));
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Seeding failed with status " + response.statusCode());
+            }
+        }
+
+        List<Long> ids = new ArrayList<>();
+        Matcher matcher = ID.matcher(get(0, "/api/books").body());
+        while (matcher.find()) {
+            ids.add(Long.parseLong(matcher.group(1)));
+        }
+        return ids;
+    }
+
+    private static boolean checkCoherence(int nodes, List<Long> ids) throws Exception {
+        Random random = new Random(42);
+        List<Long> live = new ArrayList<>(ids);
+        List<Long> convergence = new ArrayList<>();
+        int failures = 0;
+
+        for (int round = 0; round < COHERENCE_ROUNDS; round++) {
+            long id = live.get(random.nextInt(live.size()));
+            int writer = round % nodes;
+            boolean delete = round % 5 == 4;
+            // Letters only, so the search index sees it as one word
+            String token = "coherence" + (char) ('a' + round % 26) + (char) ('a' + round / 26);
+
+            // Every node caches the current version first, so a missed invalidation shows
+            for (int node = 0; node < nodes; node++) {
+                get(node, "/api/books/" + id);
+            }
+
+            String expectedETag;
+            long written = System.nanoTime();
+            if (delete) {
+                int status = send(writer, HttpRequest.newBuilder().uri(uri(writer, "/api/books/" + id)).DELETE()).statusCode();
+                if (status != 204) {
+                    throw new IllegalStateException("Delete of " + id + " failed with status " + status);
+                }
+                live.remove(id);
+                expectedETag = null;
+            } else {
+                String current = get(writer, "/api/books/" + id).body();
+                String body = "{\"title\":\"Harness " + token + "\",\"author\":\"Harness\",\"isbn\":\""
+                        + group(ISBN, current) + "\",\"publishedDate\":\"2001-01-01\"}";
+                HttpResponse<String> response = send(writer, HttpRequest.newBuilder()
+                        .uri(uri(writer, "/api/books/" + id))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(body)));
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("Update of " + id + " failed with status " + response.statusCode());
+                }
+                expectedETag = "\"" + group(VERSION, response.body()) + "\"";
+            }
+
+            long deadline = written + CONVERGENCE_TIMEOUT.toNanos();
+            boolean converged = false;
+            while (!converged && System.nanoTime() < deadline) {
+                converged = true;
+                for (int node = 0; node < nodes && converged; node++) {
+                    converged = serves(node, id, expectedETag, token);
+                }
+                if (!converged) {
+                    Thread.sleep(10);
+                }
+            }
+            if (converged) {
+                convergence.add((System.nanoTime() - written) / 1_000_000);
+            } else {
+                failures++;
+                System.out.printf("Round %d: book %d did not converge on every node within %s%n",
+                        round, id, CONVERGENCE_TIMEOUT);
+            }
+        }
+
+        Collections.sort(convergence);
+        System.out.printf("Coherence: %d/%d rounds converged; p50=%dms max=%dms%n",
+                convergence.size(), COHERENCE_ROUNDS,
+                convergence.isEmpty() ? 0 : convergence.get(convergence.size() / 2),
+                convergence.isEmpty() ? 0 : convergence.get(convergence.size() - 1));
+        return failures == 0;
+    }
+
+    // Whether the node serves the write: the new version by id and in search, or a 404 and no
+    // search hit after a delete (expectedETag null)
+    private static boolean serves(int node, long id, String expectedETag, String token) throws Exception {
+        HttpResponse<String> byId = get(node, "/api/books/" + id);
+        boolean found = Pattern.compile("\"id\":" + id + "[,}]").matcher(get(node, "/api/books/search?q=" + token).body()).find();
+        if (expectedETag == null) {
+            return byId.statusCode() == 404 && !found;
+        }
+        return byId.statusCode() == 200
+                && expectedETag.equals(byId.headers().firstValue("ETag").orElse(null))
+                && found;
+    }
+
+    private static void measureThroughput(int nodes, List<Long> ids, int seconds, int concurrency) throws Exception {
+        double single = 0;
+        for (int active = 1; active <= nodes; active++) {
+            double throughput = readThroughput(active, ids, seconds, concurrency);
+            if (active == 1) {
+                single = throughput;
+            }
+            System.out.printf("Reads over %d node(s): %.0f req/s (%.2fx)%n", active, throughput, throughput / single);
+        }
+    }
+
+    private static double readThroughput(int active, List<Long> ids, int seconds, int concurrency) throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        long deadline = start + Duration.ofSeconds(seconds).toNanos();
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            int node = w % active;
+            futures.add(workers.submit(() -> {
+                long requests = 0;
+                while (System.nanoTime() < deadline) {
+                    long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+                    try {
+                        client.send(HttpRequest.newBuilder(uri(node, "/api/books/" + id)).GET().build(),
+                                HttpResponse.BodyHandlers.discarding());
+                        requests++;
+                    } catch (IOException e) {
+                        // Counted as not served
+                    }
+                }
+                return requests;
+            }));
+        }
+        long total = 0;
+        for (Future<Long> future : futures) {
+            total += future.get();
+        }
+        workers.shutdown();
+        return total / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static String group(Pattern pattern, String text) {
+        Matcher matcher = pattern.matcher(text);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected response: " + text);
+        }
+        return matcher.group(1);
+    }
+
+    private static HttpResponse<String> get(int node, String path) throws Exception {
+        return send(node, HttpRequest.newBuilder().uri(uri(node, path)).GET());
+    }
+
+    private static HttpResponse<String> send(int node, HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static URI uri(int node, String path) {
+        return URI.create("http://localhost:" + port(node) + path);
+    }
+
+    private static int port(int node) {
+        return BASE_PORT + node;
+    }
+}